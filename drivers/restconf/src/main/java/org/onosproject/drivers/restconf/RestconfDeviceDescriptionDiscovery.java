@@ -0,0 +1,199 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.drivers.restconf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.onosproject.net.AnnotationKeys;
+import org.onosproject.net.DefaultAnnotations;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Port;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.device.DefaultPortDescription;
+import org.onosproject.net.device.DeviceDescription;
+import org.onosproject.net.device.DeviceDescriptionDiscovery;
+import org.onosproject.net.device.PortDescription;
+import org.onosproject.net.driver.AbstractHandlerBehaviour;
+import org.onosproject.net.driver.DriverHandler;
+import org.onosproject.restconf.RestconfController;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Discovers the ports of a RESTCONF device from the operational state in the
+ * ietf-interfaces YANG module (RFC 7223).
+ * <p>
+ * Every call returns the full list of ports.  Callers that refresh ports
+ * periodically should compare the result with what they last reported so that
+ * only added, removed and changed ports are sent to the core.
+ */
+public class RestconfDeviceDescriptionDiscovery extends AbstractHandlerBehaviour
+        implements DeviceDescriptionDiscovery {
+
+    private final Logger log = getLogger(getClass());
+
+    public static final String INTERFACES_STATE = "/data/ietf-interfaces:interfaces-state";
+
+    private static final String INTERFACES_STATE_NODE = "ietf-interfaces:interfaces-state";
+    private static final long FETCH_TIMEOUT_SECS = 60;
+    private static final long BITS_PER_MBPS = 1000000L;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // IANA interface types (iana-if-type) that map to something other than copper
+
+    private static final Map<String, Port.Type> PORT_TYPES =
+            ImmutableMap.<String, Port.Type>builder()
+                    .put("opticalChannel", Port.Type.OCH)
+                    .put("opticalTransport", Port.Type.OMS)
+                    .put("fibreChannel", Port.Type.FIBER)
+                    .put("softwareLoopback", Port.Type.VIRTUAL)
+                    .put("l2vlan", Port.Type.VIRTUAL)
+                    .put("l3ipvlan", Port.Type.VIRTUAL)
+                    .put("tunnel", Port.Type.VIRTUAL)
+                    .put("ieee8023adLag", Port.Type.VIRTUAL)
+                    .build();
+
+    /**
+     * Device details are supplied by the RESTCONF device provider
+     *
+     * @return null
+     */
+    @Override
+    public DeviceDescription discoverDeviceDetails() {
+        return null;
+    }
+
+    /**
+     * Discover the ports of the device from ietf-interfaces:interfaces-state
+     *
+     * @return list of port descriptions, empty if the device could not be read
+     */
+    @Override
+    public List<PortDescription> discoverPortDetails() {
+        DriverHandler handler = handler();
+        RestconfController controller = handler.get(RestconfController.class);
+        DeviceId deviceId = handler.data().deviceId();
+        Preconditions.checkNotNull(controller, "RESTconf controller is null");
+
+        try {
+            String reply = controller.getResource(deviceId, INTERFACES_STATE)
+                    .get(FETCH_TIMEOUT_SECS, TimeUnit.SECONDS);
+
+            if (reply == null) {
+                log.debug("Unable to read interfaces of {}", deviceId);
+                return ImmutableList.of();
+            }
+            return parsePorts(deviceId, reply);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Unable to read interfaces of {}: {}", deviceId, e.toString());
+        }
+        return ImmutableList.of();
+    }
+
+    /**
+     * Map the JSON encoding (RFC 7951) of interfaces-state to port descriptions
+     *
+     * @param deviceId device the reply came from
+     * @param reply    JSON reply
+     *
+     * @return list of port descriptions
+     */
+    private List<PortDescription> parsePorts(DeviceId deviceId, String reply) {
+        JsonNode interfaces;
+
+        try {
+            interfaces = MAPPER.readTree(reply).path(INTERFACES_STATE_NODE).path("interface");
+
+        } catch (IOException e) {
+            log.warn("Unable to parse interfaces of {}: {}", deviceId, e.toString());
+            return ImmutableList.of();
+        }
+        ImmutableList.Builder<PortDescription> ports = ImmutableList.builder();
+
+        for (JsonNode entry : interfaces) {
+            String name = entry.path("name").asText();
+
+            if (!entry.has("if-index")) {
+                // ONOS port numbers are numeric and if-index is the only stable one
+
+                log.debug("Interface {} of {} has no if-index, ignored", name, deviceId);
+                continue;
+            }
+            PortNumber number = PortNumber.portNumber(entry.path("if-index").asLong(), name);
+
+            boolean enabled = "up".equals(entry.path("admin-status").asText())
+                    && "up".equals(entry.path("oper-status").asText());
+
+            long speed = speedMbps(entry.path("speed"));
+
+            DefaultAnnotations.Builder annotations = DefaultAnnotations.builder()
+                    .set(AnnotationKeys.PORT_NAME, name);
+
+            if (entry.has("phys-address")) {
+                annotations.set(AnnotationKeys.PORT_MAC, entry.path("phys-address").asText());
+            }
+            ports.add(new DefaultPortDescription(number, enabled, portType(entry.path("type").asText()),
+                    speed, annotations.build()));
+        }
+        return ports.build();
+    }
+
+    /**
+     * Convert an interface speed in bits per second to megabits per second
+     *
+     * @param speed speed leaf, a gauge64 which RFC 7951 encodes as a JSON string
+     *
+     * @return speed in Mbps, zero if unknown
+     */
+    private static long speedMbps(JsonNode speed) {
+        try {
+            return Long.parseLong(speed.asText("0")) / BITS_PER_MBPS;
+
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Map an identity from iana-if-type to an ONOS port type
+     *
+     * @param type interface type, optionally prefixed with its module name
+     *
+     * @return port type
+     */
+    private static Port.Type portType(String type) {
+        String identity = type.substring(type.indexOf(':') + 1);
+
+        return PORT_TYPES.getOrDefault(identity, Port.Type.COPPER);
+    }
+}
@@ -15,10 +15,15 @@
  */
 package org.onosproject.restconf;
 
+import io.netty.util.Timer;
 import org.onlab.packet.IpAddress;
 import org.onosproject.net.DeviceId;
 
+import java.util.Collection;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Abstraction of an RESTCONF controller.
@@ -41,6 +46,34 @@ public interface RestconfController {
      */
     void removeDeviceListener(RestconfDeviceListener listener);
 
+    /**
+     * Adds a listener for device state machine transitions.
+     *
+     * @param listener state listener
+     */
+    void addStateListener(RestconfDeviceStateListener listener);
+
+    /**
+     * Removes a listener for device state machine transitions.
+     *
+     * @param listener state listener
+     */
+    void removeStateListener(RestconfDeviceStateListener listener);
+
+    /**
+     * Adds a listener for the replies and notifications of all devices.
+     *
+     * @param listener output event listener
+     */
+    void addOutputListener(RestconfDeviceOutputEventListener listener);
+
+    /**
+     * Removes a listener for the replies and notifications of all devices.
+     *
+     * @param listener output event listener
+     */
+    void removeOutputListener(RestconfDeviceOutputEventListener listener);
+
     /**
      * Tries to connect to a specific RESTCONF device, if the connection is successful
      * it creates and adds the device to the ONOS core as a RestconfDevice.
@@ -68,6 +101,40 @@ public interface RestconfController {
      */
     void removeDevice(DeviceId deviceId);
 
+    /**
+     * Adds and connects a group of RESTCONF devices in one operation.
+     * <p>
+     * Devices are registered with bounded parallelism and device listeners are
+     * notified as each device is added, so listeners can install and start devices
+     * while the remainder are still being registered. Devices that are already known
+     * are reported to listeners as modified.
+     *
+     * @param devices information for the devices to connect
+     *
+     * @return future completed with the per-device result, true if the device was accepted
+     */
+    CompletableFuture<Map<DeviceId, Boolean>> connectDevices(Collection<RestconfDeviceInfo> devices);
+
+    /**
+     * Disconnects a group of RESTCONF devices in one operation.
+     *
+     * @param deviceIds ids of the devices to disconnect
+     * @param remove    true if the devices are to be removed from core
+     *
+     * @return future completed with the per-device result, true if the device was known
+     */
+    CompletableFuture<Map<DeviceId, Boolean>> disconnectDevices(Collection<DeviceId> deviceIds,
+                                                                boolean remove);
+
+    /**
+     * Removes a group of RESTCONF devices from the core in one operation.
+     *
+     * @param deviceIds ids of the devices to remove
+     *
+     * @return future completed with the per-device result, true if the device was removed
+     */
+    CompletableFuture<Map<DeviceId, Boolean>> removeDevices(Collection<DeviceId> deviceIds);
+
     /**
      * Gets all the nodes information.
      *
@@ -99,6 +166,123 @@ public interface RestconfController {
      */
     RestconfDevice getDevice(IpAddress ip, int port);
 
+    /**
+     * Probe a device with a lightweight RESTCONF request.
+     * <p>
+     * Probes requested within a short window are coalesced per device and issued
+     * asynchronously, so many probe requests at once never block the caller.
+     *
+     * @param deviceId device to probe
+     *
+     * @return future completed with true if the device answered the probe
+     */
+    CompletableFuture<Boolean> probeDevice(DeviceId deviceId);
+
+    /**
+     * Poll a RESTCONF resource of a device and fingerprint it.
+     * <p>
+     * Polls are batched and issued asynchronously in the same way as probes. The
+     * fingerprint is the device's entity tag for the resource if it supplies one,
+     * otherwise a hash of the content, so successive polls can be compared to detect
+     * change.
+     *
+     * @param deviceId device to poll
+     * @param resource resource path relative to the device's RESTCONF API root
+     *
+     * @return future completed with the resource fingerprint, or null if the poll failed
+     */
+    CompletableFuture<String> pollResource(DeviceId deviceId, String resource);
+
+    /**
+     * Read a RESTCONF resource of a device.
+     * <p>
+     * Reads are batched and issued asynchronously in the same way as polls, and
+     * concurrent reads of the same resource share one request.
+     *
+     * @param deviceId device to read from
+     * @param resource resource path relative to the device's RESTCONF API root
+     *
+     * @return future completed with the resource content, or null if the read failed
+     */
+    CompletableFuture<String> getResource(DeviceId deviceId, String resource);
+
+    /**
+     * Merge content into a RESTCONF resource of a device (RFC 8040 plain PATCH).
+     * <p>
+     * Edits are issued asynchronously on the same client as polls.  They are not
+     * coalesced, so callers should merge related edits into one request.
+     *
+     * @param deviceId device to edit
+     * @param resource resource path relative to the device's RESTCONF API root
+     * @param content  JSON content to merge into the resource
+     *
+     * @return future completed with true if the device accepted the edit
+     */
+    CompletableFuture<Boolean> patchResource(DeviceId deviceId, String resource, String content);
+
+    /**
+     * Get the number of devices currently in a given state.
+     *
+     * @param state device state, one of the {@link RestconfDeviceState} values
+     *
+     * @return number of devices in that state
+     */
+    int getDeviceCount(int state);
+
+    /**
+     * Get the IDs of all devices currently in a given state.
+     *
+     * @param state device state, one of the {@link RestconfDeviceState} values
+     *
+     * @return live, read-only view of the device IDs in that state
+     */
+    Set<DeviceId> getDeviceIds(int state);
+
+    /**
+     * Set the number of worker threads used for per-device event processing.
+     * <p>
+     * Events for a device are always processed by the same worker so they are
+     * handled in order.
+     *
+     * @param numThreads number of worker threads
+     */
+    void setWorkerThreads(int numThreads);
+
+    /**
+     * Set how blocking device operations are executed.
+     *
+     * @param mode execution mode
+     */
+    void setExecutionMode(RestconfExecutionMode mode);
+
+    /**
+     * Get the executor for blocking device operations (session requests, reachability
+     * probes, ...).  Blocking work should be run here rather than on the caller's or
+     * a device event thread.
+     *
+     * @return executor for blocking operations
+     */
+    Executor getBlockingExecutor();
+
+    /**
+     * Get the timer shared by all devices for retries, poll ticks and other delayed
+     * work.  Timer tasks must be short; longer work should be handed off to an
+     * executor.
+     *
+     * @return shared timer
+     */
+    Timer getTimer();
+
+    /**
+     * Get the number of devices waiting for admission into the DISCOVERY state.
+     * <p>
+     * Connection attempts are rate limited across all devices so that mass recovery
+     * after a controller restart or network outage ramps up smoothly.
+     *
+     * @return number of devices waiting to connect
+     */
+    int getConnectQueueDepth();
+
     /**
      * Create a RESTCONF device object
      *
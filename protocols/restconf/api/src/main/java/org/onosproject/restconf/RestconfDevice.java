@@ -27,10 +27,37 @@ public interface RestconfDevice {
      */
     void start();
 
+    /**
+     * Restart the device from a snapshot saved by a previous run.
+     * <p>
+     * If the device was ACTIVE when the snapshot was taken, the snapshot carries its
+     * discovery results and the device is still reachable, the saved discovery results
+     * are reused and the device moves directly to the 'ACTIVE' state. Otherwise this
+     * behaves the same as {@link #start()}.
+     *
+     * @param snapshot previously saved device snapshot
+     */
+    void resume(RestconfDeviceSnapshot snapshot);
+
+    /**
+     * Get a snapshot of the discovery results and current state of this device
+     *
+     * @return device snapshot
+     */
+    RestconfDeviceSnapshot getSnapshot();
+
+    /**
+     * Get the identity (manufacturer, versions and serial number) the device reported
+     * about itself while it was populated
+     *
+     * @return device identity, unknown until the device has been populated
+     */
+    RestconfDeviceIdentity getIdentity();
+
     /**
      * Get the current state of the device
      *
-     * @return Device State
+     * @return Device State, one of the {@link RestconfDeviceState} values
      */
     int getState();
 
@@ -56,11 +83,20 @@ public interface RestconfDevice {
     RestconfSession getSession();
 
     /**
-     * Ensures that all sessions are closed.
-     * A device cannot be used after disconnect is called.
+     * Ensures that all sessions are closed.  The device returns to the 'IDLE' state
+     * and is not reconnected until {@link #start()} is called again.
      */
     void disconnect();
 
+    /**
+     * Change the administrative state of the device.  An ACTIVE device placed
+     * administratively down becomes INACTIVE and is not reconnected, an INACTIVE
+     * device placed back up becomes ACTIVE again.
+     *
+     * @param adminUp true to place the device administratively up
+     */
+    void setAdminState(boolean adminUp);
+
     /**
      * Get the initial connection information fro a device
      *
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.google.common.hash.Hashing;
+import org.onlab.packet.ChassisId;
+import org.onosproject.net.DeviceId;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Identity of a device (manufacturer, versions and serial number) as reported by
+ * the device itself.
+ * <p>
+ * The chassis entry of the ietf-hardware component list (RFC 8348) is preferred,
+ * with ietf-system platform data (RFC 7317) filling in any versions it lacks.  Both
+ * are read in parallel while the device is populated, so reading them costs one
+ * round trip.
+ */
+public final class RestconfDeviceIdentity {
+
+    public static final String UNKNOWN = "unknown";
+
+    public static final String HARDWARE = "/data/ietf-hardware:hardware"
+            + "?fields=component(name;class;parent;mfg-name;hardware-rev;software-rev;serial-num)";
+    public static final String PLATFORM = "/data/ietf-system:system-state/platform";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final RestconfDeviceIdentity UNKNOWN_IDENTITY =
+            new RestconfDeviceIdentity(UNKNOWN, UNKNOWN, UNKNOWN, UNKNOWN);
+
+    private final String manufacturer;
+    private final String hwVersion;
+    private final String swVersion;
+    private final String serialNumber;
+
+    private RestconfDeviceIdentity(String manufacturer, String hwVersion, String swVersion,
+                                   String serialNumber) {
+        this.manufacturer = manufacturer;
+        this.hwVersion = hwVersion;
+        this.swVersion = swVersion;
+        this.serialNumber = serialNumber;
+    }
+
+    /**
+     * Identity used when the device could not tell us
+     *
+     * @return identity with every field unknown
+     */
+    public static RestconfDeviceIdentity unknown() {
+        return UNKNOWN_IDENTITY;
+    }
+
+    /**
+     * Identity with the given values, as saved in a device snapshot
+     *
+     * @param manufacturer manufacturer of the device
+     * @param hwVersion    hardware version of the device
+     * @param swVersion    software version of the device
+     * @param serialNumber serial number of the device
+     *
+     * @return device identity, blank or null values are unknown
+     */
+    public static RestconfDeviceIdentity of(String manufacturer, String hwVersion, String swVersion,
+                                            String serialNumber) {
+        RestconfDeviceIdentity identity = new RestconfDeviceIdentity(orUnknown(manufacturer),
+                orUnknown(hwVersion), orUnknown(swVersion), orUnknown(serialNumber));
+
+        return identity.isKnown() ? identity : UNKNOWN_IDENTITY;
+    }
+
+    private static String orUnknown(String value) {
+        return (value == null || value.isEmpty()) ? UNKNOWN : value;
+    }
+
+    /**
+     * Build an identity from the ietf-hardware and ietf-system replies
+     *
+     * @param hardware hardware component list, null if not available
+     * @param platform system platform data, null if not available
+     *
+     * @return device identity, unknown fields if the device does not support the
+     * models or could not be read
+     */
+    public static RestconfDeviceIdentity parse(String hardware, String platform) {
+        JsonNode chassis = findChassis(readTree(hardware));
+        JsonNode system = readTree(platform).path("ietf-system:platform");
+
+        String osVersion = system.has("os-name") ?
+                (system.path("os-name").asText() + " " + system.path("os-release").asText("")).trim() : null;
+
+        return new RestconfDeviceIdentity(
+                text(chassis, "mfg-name", null),
+                text(chassis, "hardware-rev", text(system, "machine", null)),
+                text(chassis, "software-rev", osVersion),
+                text(chassis, "serial-num", null));
+    }
+
+    private static JsonNode readTree(String reply) {
+        try {
+            return reply == null ? MissingNode.getInstance() : MAPPER.readTree(reply);
+
+        } catch (IOException e) {
+            return MissingNode.getInstance();
+        }
+    }
+
+    /**
+     * Find the chassis at the root of the component tree
+     */
+    private static JsonNode findChassis(JsonNode hardware) {
+        JsonNode chassis = MissingNode.getInstance();
+
+        for (JsonNode component : hardware.path("ietf-hardware:hardware").path("component")) {
+            if (component.path("class").asText().endsWith(":chassis")) {
+                if (!component.has("parent")) {
+                    return component;
+                }
+                if (chassis.isMissingNode()) {
+                    chassis = component;
+                }
+            }
+        }
+        return chassis;
+    }
+
+    private static String text(JsonNode node, String field, String fallback) {
+        String value = node.path(field).asText("");
+
+        return !value.isEmpty() ? value : (fallback != null && !fallback.isEmpty()) ? fallback : UNKNOWN;
+    }
+
+    /**
+     * Whether the device reported anything about itself
+     *
+     * @return true if any field is known
+     */
+    public boolean isKnown() {
+        return !(UNKNOWN.equals(manufacturer) && UNKNOWN.equals(hwVersion)
+                && UNKNOWN.equals(swVersion) && UNKNOWN.equals(serialNumber));
+    }
+
+    /**
+     * Chassis identifier of the device, derived from its serial number if known and
+     * otherwise from its device identifier so that it is stable across restarts
+     *
+     * @param deviceId device identifier
+     *
+     * @return chassis identifier
+     */
+    public ChassisId chassisId(DeviceId deviceId) {
+        String source = UNKNOWN.equals(serialNumber) ? deviceId.toString() : manufacturer + serialNumber;
+
+        return new ChassisId(Hashing.murmur3_128().hashString(source, StandardCharsets.UTF_8).asLong()
+                & Long.MAX_VALUE);
+    }
+
+    /**
+     * Manufacturer of the device
+     *
+     * @return manufacturer of the device, or "unknown"
+     */
+    public String manufacturer() {
+        return manufacturer;
+    }
+
+    /**
+     * Hardware version of the device
+     *
+     * @return hardware version of the device, or "unknown"
+     */
+    public String hwVersion() {
+        return hwVersion;
+    }
+
+    /**
+     * Software version of the device
+     *
+     * @return software version of the device, or "unknown"
+     */
+    public String swVersion() {
+        return swVersion;
+    }
+
+    /**
+     * Serial number of the device
+     *
+     * @return serial number of the device, or "unknown"
+     */
+    public String serialNumber() {
+        return serialNumber;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(manufacturer, hwVersion, swVersion, serialNumber);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof RestconfDeviceIdentity)) {
+            return false;
+        }
+        RestconfDeviceIdentity other = (RestconfDeviceIdentity) obj;
+
+        return manufacturer.equals(other.manufacturer) && hwVersion.equals(other.hwVersion)
+                && swVersion.equals(other.swVersion) && serialNumber.equals(other.serialNumber);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("manufacturer", manufacturer)
+                .add("hwVersion", hwVersion)
+                .add("swVersion", swVersion)
+                .add("serialNumber", serialNumber)
+                .toString();
+    }
+}
@@ -16,21 +16,55 @@
 package org.onosproject.restconf;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import org.onlab.packet.IpAddress;
 import org.onosproject.net.DeviceId;
 
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Provides information on initial connectivity to a RESTCONF device
  */
 public class RestconfDeviceInfo {
 
-    private DeviceId deviceId;
+    // Device information is held for every device, and at large scale almost all devices
+    // share the same API root and media types. The API root and certificate path are
+    // interned and media types are kept as packed indexes into a fixed registry so each
+    // device only pays for its own fields. Credentials are never interned: an interned password
+    // would outlive the devices using it. The saving is about a quarter of the heap per device
+    // (see RestconfDeviceInfoTest); the device ID and address dominate what remains.
+
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
+
+    /**
+     * Media types a device may be configured with.  A device's media types are encoded
+     * as indexes into this list, so it must only ever be appended to, and may hold at
+     * most seven entries.
+     */
+    public static final List<String> MEDIA_TYPES = ImmutableList.of(
+            "xml",
+            "json",
+            "application/yang-data+xml",
+            "application/yang-data+json");
+
+    // Each media type is packed into MEDIA_TYPE_BITS as its registry index plus one, in
+    // preference order with the most preferred in the lowest bits; zero ends the list
+
+    private static final int MEDIA_TYPE_BITS = 3;
+    private static final int MEDIA_TYPE_FIELD = (1 << MEDIA_TYPE_BITS) - 1;
+
+    private static final Map<Integer, List<String>> MEDIA_TYPE_LISTS = new ConcurrentHashMap<>();
+
+    private final DeviceId deviceId;
     private final String userName;
     private final String password;
     private final String certificatePath;   // TODO: May want to contain it here, not in a file
@@ -38,10 +72,25 @@ public class RestconfDeviceInfo {
     private final int port;
     private final boolean useTLS;
     private final String apiRoot;
-    private final List<String> mediaTypes;
+    private final int mediaTypeCodes;
     private final int socketTimeout;
     private boolean isAdminUp;
 
+    /**
+     * Device settings that may change for an existing device. The address and port make
+     * up the device's identity and so can not change.
+     */
+    public enum Field {
+        USER_NAME,
+        PASSWORD,
+        CERTIFICATE_PATH,
+        TLS,
+        SOCKET_TIMEOUT,
+        API_ROOT,
+        MEDIA_TYPES,
+        ADMIN_STATE
+    }
+
     // TODO: Added persistent storage / cluster support?
     // TODO: Do we want to keep sessions to devices opened for a smaller window of time after
     //       a message is sent/received in order to improve performance during tasks that may
@@ -75,14 +124,75 @@ public class RestconfDeviceInfo {
 
         this.userName = username;
         this.password = password;
-        this.certificatePath = certificatePath;
+        this.certificatePath = intern(certificatePath);
         this.address = ipaddr;
         this.port = port;
         this.useTLS = tls;
         this.socketTimeout = socketTimeout;
-        this.apiRoot = apiRoot;
-        this.mediaTypes = mediaTypes;
+        this.apiRoot = intern(apiRoot);
+        this.mediaTypeCodes = encodeMediaTypes(mediaTypes);
         this.isAdminUp = adminUp;
+        this.deviceId = createDeviceId(ipaddr, port);
+    }
+
+    private static String intern(String value) {
+        return value == null ? null : STRINGS.intern(value);
+    }
+
+    /**
+     * Encode media types, in preference order, as packed indexes into the
+     * {@link #MEDIA_TYPES} registry.  Repeated media types are only encoded once.
+     *
+     * @param mediaTypes media types, most preferred first
+     *
+     * @return packed media type codes
+     *
+     * @throws IllegalArgumentException if a media type is not in the registry
+     */
+    private static int encodeMediaTypes(List<String> mediaTypes) {
+        int codes = 0;
+        int shift = 0;
+
+        for (String mediaType : mediaTypes) {
+            int index = MEDIA_TYPES.indexOf(mediaType);
+
+            Preconditions.checkArgument(index >= 0, "Unsupported media type '%s', expected one of %s",
+                    mediaType, MEDIA_TYPES);
+
+            if (!containsCode(codes, index + 1)) {
+                codes |= (index + 1) << shift;
+                shift += MEDIA_TYPE_BITS;
+            }
+        }
+        return codes;
+    }
+
+    private static boolean containsCode(int codes, int code) {
+        for (int rest = codes; rest != 0; rest >>>= MEDIA_TYPE_BITS) {
+            if ((rest & MEDIA_TYPE_FIELD) == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decode packed media type codes.  Lists are shared by all devices with the same
+     * media types in the same order.
+     *
+     * @param codes packed media type codes
+     *
+     * @return immutable list of media types, most preferred first
+     */
+    private static List<String> decodeMediaTypes(int codes) {
+        return MEDIA_TYPE_LISTS.computeIfAbsent(codes, key -> {
+            ImmutableList.Builder<String> builder = ImmutableList.builder();
+
+            for (int rest = key; rest != 0; rest >>>= MEDIA_TYPE_BITS) {
+                builder.add(MEDIA_TYPES.get((rest & MEDIA_TYPE_FIELD) - 1));
+            }
+            return builder.build();
+        });
     }
 
     /**
@@ -139,10 +249,13 @@ public class RestconfDeviceInfo {
     }
 
     /**
-     * @return
+     * Get the media types supported by the device.  Media types are returned
+     * in the order configured, most preferred first.
+     *
+     * @return immutable list of media types
      */
     public List<String> getMediaTypes() {
-        return Collections.unmodifiableList(mediaTypes);
+        return decodeMediaTypes(mediaTypeCodes);
     }
 
     /**
@@ -165,9 +278,6 @@ public class RestconfDeviceInfo {
      * @return DeviceId
      */
     public DeviceId getDeviceId() {
-        if (deviceId == null) {
-            deviceId = createDeviceId(address, port);
-        }
         return deviceId;
     }
 
@@ -219,6 +329,45 @@ public class RestconfDeviceInfo {
         return isAdminUp;
     }
 
+    /**
+     * Compare the settings of this device with another description of the same device
+     *
+     * @param other updated information for the same device
+     *
+     * @return settings that differ, empty if none
+     */
+    public Set<Field> changedFields(RestconfDeviceInfo other) {
+        Preconditions.checkArgument(equals(other), "Not the same device");
+
+        Set<Field> changed = EnumSet.noneOf(Field.class);
+
+        if (!Objects.equals(userName, other.userName)) {
+            changed.add(Field.USER_NAME);
+        }
+        if (!Objects.equals(password, other.password)) {
+            changed.add(Field.PASSWORD);
+        }
+        if (!Objects.equals(certificatePath, other.certificatePath)) {
+            changed.add(Field.CERTIFICATE_PATH);
+        }
+        if (useTLS != other.useTLS) {
+            changed.add(Field.TLS);
+        }
+        if (socketTimeout != other.socketTimeout) {
+            changed.add(Field.SOCKET_TIMEOUT);
+        }
+        if (!Objects.equals(apiRoot, other.apiRoot)) {
+            changed.add(Field.API_ROOT);
+        }
+        if (mediaTypeCodes != other.mediaTypeCodes) {
+            changed.add(Field.MEDIA_TYPES);
+        }
+        if (isAdminUp != other.isAdminUp) {
+            changed.add(Field.ADMIN_STATE);
+        }
+        return changed;
+    }
+
     /**
      * Return the info about the device in a string.
      * String format: "restconf:username@ip:port"
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf;
+
+import com.google.common.collect.ImmutableSet;
+import org.onosproject.net.DeviceId;
+
+import java.util.Objects;
+import java.util.Set;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Discovery results and last known state of a RESTCONF device.
+ * <p>
+ * A snapshot is saved when the provider stops so that on restart a device can skip
+ * the DISCOVERY and POPULATE states and only needs a cheap liveness check before it
+ * is ACTIVE again.
+ */
+public class RestconfDeviceSnapshot {
+
+    private final DeviceId deviceId;
+    private final String apiRoot;
+    private final String moduleSetId;
+    private final String mediaType;
+    private final Set<String> capabilities;
+    private final RestconfDeviceIdentity identity;
+    private final int lastState;
+
+    /**
+     * Create a device snapshot
+     *
+     * @param deviceId     device ID
+     * @param apiRoot      discovered RESTCONF API root
+     * @param moduleSetId  ietf-yang-library module-set-id
+     * @param mediaType    negotiated media type
+     * @param capabilities RESTCONF capability URIs advertised by the device
+     * @param lastState    device state when the snapshot was taken
+     */
+    public RestconfDeviceSnapshot(DeviceId deviceId, String apiRoot, String moduleSetId,
+                                  String mediaType, Set<String> capabilities,
+                                  int lastState) {
+        this(deviceId, apiRoot, moduleSetId, mediaType, capabilities,
+                RestconfDeviceIdentity.unknown(), lastState);
+    }
+
+    /**
+     * Create a device snapshot
+     *
+     * @param deviceId     device ID
+     * @param apiRoot      discovered RESTCONF API root
+     * @param moduleSetId  ietf-yang-library module-set-id
+     * @param mediaType    negotiated media type
+     * @param capabilities RESTCONF capability URIs advertised by the device
+     * @param identity     identity reported by the device
+     * @param lastState    device state when the snapshot was taken
+     */
+    public RestconfDeviceSnapshot(DeviceId deviceId, String apiRoot, String moduleSetId,
+                                  String mediaType, Set<String> capabilities,
+                                  RestconfDeviceIdentity identity, int lastState) {
+        this.deviceId = checkNotNull(deviceId, "Device ID is null");
+        this.apiRoot = Objects.toString(apiRoot, "");
+        this.moduleSetId = Objects.toString(moduleSetId, "");
+        this.mediaType = Objects.toString(mediaType, "");
+        this.capabilities = capabilities == null ? ImmutableSet.of() :
+                ImmutableSet.copyOf(capabilities);
+        this.identity = identity == null ? RestconfDeviceIdentity.unknown() : identity;
+        this.lastState = lastState;
+    }
+
+    /**
+     * @return device ID
+     */
+    public DeviceId getDeviceId() {
+        return deviceId;
+    }
+
+    /**
+     * @return discovered RESTCONF API root
+     */
+    public String getApiRoot() {
+        return apiRoot;
+    }
+
+    /**
+     * @return ietf-yang-library module-set-id (blank if not yet known)
+     */
+    public String getModuleSetId() {
+        return moduleSetId;
+    }
+
+    /**
+     * @return negotiated media type (blank if not yet known)
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @return RESTCONF capability URIs advertised by the device
+     */
+    public Set<String> getCapabilities() {
+        return capabilities;
+    }
+
+    /**
+     * @return identity reported by the device
+     */
+    public RestconfDeviceIdentity getIdentity() {
+        return identity;
+    }
+
+    /**
+     * @return device state when the snapshot was taken
+     */
+    public int getLastState() {
+        return lastState;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("deviceId", deviceId)
+                .add("apiRoot", apiRoot)
+                .add("moduleSetId", moduleSetId)
+                .add("mediaType", mediaType)
+                .add("capabilities", capabilities.size())
+                .add("identity", identity)
+                .add("lastState", RestconfDeviceState.toString(lastState))
+                .toString();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf;
+
+/**
+ * States of a RESTCONF device as reported by {@link RestconfDevice#getState()}.
+ */
+public final class RestconfDeviceState {
+    /**
+     * Idle (temporary) state of the device that occurs just after the device
+     * is created by CLI/NetConfig JSON or is being restored from persistent
+     * storage after a Control or RESTCONF protocol driver reset.
+     */
+    public static final int IDLE = 0;
+    public static final int DISCOVERY = 1; // Attempting initial connection and meta-data lookup
+    public static final int POPULATE = 2;  // Pulling down YANG libraries supported
+    public static final int ACTIVE = 3;    // Active and ready for operations
+    public static final int INACTIVE = 4;  // Inactive due to administrative interaction or temporary disconnection
+    public static final int FAILED = 5;    // Inactive/error, cannot connect to device
+
+    /**
+     * Number of device states
+     */
+    public static final int NUM_STATES = 6;
+
+    private static final String[] STATE_NAMES = {
+            "IDLE", "DISCOVERY", "POPULATE", "ACTIVE", "INACTIVE", "FAILED"
+    };
+
+    private RestconfDeviceState() {
+    }
+
+    /**
+     * Get the String name for a device state
+     *
+     * @param state device state
+     *
+     * @return String name of state
+     */
+    public static String toString(int state) {
+        return (state >= 0 && state < NUM_STATES) ? STATE_NAMES[state] : "UNKNOWN";
+    }
+}
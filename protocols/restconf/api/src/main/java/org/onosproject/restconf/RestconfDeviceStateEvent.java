@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf;
+
+import org.onosproject.event.AbstractEvent;
+import org.onosproject.net.DeviceId;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * Describes a RESTCONF device state machine transition.
+ */
+public class RestconfDeviceStateEvent extends
+        AbstractEvent<RestconfDeviceStateEvent.Type, DeviceId> {
+
+    private final int previousState;
+    private final int newState;
+    private final String cause;
+
+    /**
+     * Type of device state events.
+     */
+    public enum Type {
+        /**
+         * Signifies that the device state machine changed state.
+         */
+        STATE_CHANGED,
+    }
+
+    /**
+     * Creates a state change event for the specified device and the current time.
+     *
+     * @param deviceId      device that changed state
+     * @param previousState state before the transition
+     * @param newState      state after the transition
+     * @param cause         input or reason that caused the transition
+     */
+    public RestconfDeviceStateEvent(DeviceId deviceId, int previousState, int newState,
+                                    String cause) {
+        super(Type.STATE_CHANGED, deviceId);
+        this.previousState = previousState;
+        this.newState = newState;
+        this.cause = cause;
+    }
+
+    /**
+     * Creates a state change event for the specified device and time.
+     *
+     * @param deviceId      device that changed state
+     * @param previousState state before the transition
+     * @param newState      state after the transition
+     * @param cause         input or reason that caused the transition
+     * @param time          occurrence time
+     */
+    public RestconfDeviceStateEvent(DeviceId deviceId, int previousState, int newState,
+                                    String cause, long time) {
+        super(Type.STATE_CHANGED, deviceId, time);
+        this.previousState = previousState;
+        this.newState = newState;
+        this.cause = cause;
+    }
+
+    /**
+     * State of the device before the transition.
+     *
+     * @return previous state
+     */
+    public int getPreviousState() {
+        return previousState;
+    }
+
+    /**
+     * State of the device after the transition.
+     *
+     * @return new state
+     */
+    public int getNewState() {
+        return newState;
+    }
+
+    /**
+     * Input or reason that caused the transition.
+     *
+     * @return cause of the transition
+     */
+    public String getCause() {
+        return cause;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("deviceId", subject())
+                .add("from", RestconfDeviceState.toString(previousState))
+                .add("to", RestconfDeviceState.toString(newState))
+                .add("cause", cause)
+                .add("time", time())
+                .toString();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf;
+
+import org.slf4j.Logger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * How blocking RESTCONF device operations are executed.
+ * <p>
+ * Blocking operations (session requests, reachability probes, file reads, ...) park
+ * the thread they run on.  In PLATFORM mode they share a bounded pool of platform
+ * threads.  In VIRTUAL mode each operation runs on its own virtual thread, which
+ * allows many thousands of concurrent blocking operations without a matching number
+ * of platform threads.  VIRTUAL mode requires a JVM with virtual thread support and
+ * falls back to PLATFORM mode otherwise.
+ */
+public enum RestconfExecutionMode {
+    /**
+     * Run blocking operations on a bounded pool of platform threads.
+     */
+    PLATFORM,
+
+    /**
+     * Run each blocking operation on its own virtual thread.
+     */
+    VIRTUAL;
+
+    private static final Logger log = getLogger(RestconfExecutionMode.class);
+
+    // Looked up reflectively since we are built for a JVM without virtual threads
+
+    private static final Method NEW_VIRTUAL_EXECUTOR = lookupVirtualExecutorFactory();
+
+    private static Method lookupVirtualExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Does the running JVM support virtual threads
+     *
+     * @return true if virtual threads are available
+     */
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_EXECUTOR != null;
+    }
+
+    /**
+     * Parse an execution mode name (case insensitive)
+     *
+     * @param name execution mode name
+     *
+     * @return execution mode
+     *
+     * @throws IllegalArgumentException if the name is not a known execution mode
+     */
+    public static RestconfExecutionMode fromString(String name) {
+        return valueOf(name.trim().toUpperCase());
+    }
+
+    /**
+     * Create an executor for blocking operations in this mode
+     *
+     * @param platformThreads number of threads to use in PLATFORM mode
+     * @param threadFactory   thread factory to use in PLATFORM mode
+     *
+     * @return new executor service
+     */
+    public ExecutorService newExecutor(int platformThreads, ThreadFactory threadFactory) {
+        if (this == VIRTUAL) {
+            if (isVirtualThreadSupported()) {
+                try {
+                    return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    log.warn("Unable to create virtual thread executor: {}", e.toString());
+                }
+            } else {
+                log.warn("Virtual threads are not supported by this JVM, using platform threads");
+            }
+        }
+        return Executors.newFixedThreadPool(platformThreads, threadFactory);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf;
+
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.restconf.RestconfDeviceIdentity.UNKNOWN;
+
+/**
+ * Tests building a device identity from ietf-hardware and ietf-system data.
+ */
+public class RestconfDeviceIdentityTest {
+    private static final DeviceId DEVICE_1 = DeviceId.deviceId("restconf:10.0.0.1:8080");
+    private static final DeviceId DEVICE_2 = DeviceId.deviceId("restconf:10.0.0.2:8080");
+
+    private static final String HARDWARE = "{\"ietf-hardware:hardware\": {\"component\": ["
+            + "{\"name\": \"slot-1\", \"class\": \"iana-hardware:module\", \"parent\": \"chassis\","
+            + "\"mfg-name\": \"Acme\", \"serial-num\": \"M-1\"},"
+            + "{\"name\": \"chassis\", \"class\": \"iana-hardware:chassis\","
+            + "\"mfg-name\": \"Acme\", \"hardware-rev\": \"B\", \"software-rev\": \"2.1\","
+            + "\"serial-num\": \"C-42\"}"
+            + "]}}";
+
+    private static final String PLATFORM = "{\"ietf-system:platform\": {"
+            + "\"os-name\": \"AcmeOS\", \"os-release\": \"7.0\", \"machine\": \"x86_64\"}}";
+
+    @Test
+    public void chassisPreferred() {
+        RestconfDeviceIdentity identity = RestconfDeviceIdentity.parse(HARDWARE, PLATFORM);
+
+        assertEquals("Acme", identity.manufacturer());
+        assertEquals("B", identity.hwVersion());
+        assertEquals("2.1", identity.swVersion());
+        assertEquals("C-42", identity.serialNumber());
+        assertTrue(identity.isKnown());
+    }
+
+    @Test
+    public void platformFillsGaps() {
+        String hardware = "{\"ietf-hardware:hardware\": {\"component\": ["
+                + "{\"name\": \"chassis\", \"class\": \"iana-hardware:chassis\", \"serial-num\": \"C-42\"}"
+                + "]}}";
+        RestconfDeviceIdentity identity = RestconfDeviceIdentity.parse(hardware, PLATFORM);
+
+        assertEquals(UNKNOWN, identity.manufacturer());
+        assertEquals("x86_64", identity.hwVersion());
+        assertEquals("AcmeOS 7.0", identity.swVersion());
+        assertEquals("C-42", identity.serialNumber());
+    }
+
+    @Test
+    public void platformOnly() {
+        RestconfDeviceIdentity identity = RestconfDeviceIdentity.parse(null, PLATFORM);
+
+        assertEquals("x86_64", identity.hwVersion());
+        assertEquals("AcmeOS 7.0", identity.swVersion());
+        assertEquals(UNKNOWN, identity.serialNumber());
+        assertTrue(identity.isKnown());
+    }
+
+    @Test
+    public void nothingReported() {
+        assertFalse(RestconfDeviceIdentity.parse(null, null).isKnown());
+        assertFalse(RestconfDeviceIdentity.parse("not json", "{").isKnown());
+        assertFalse(RestconfDeviceIdentity.unknown().isKnown());
+    }
+
+    @Test
+    public void chassisIdStable() {
+        RestconfDeviceIdentity identity = RestconfDeviceIdentity.parse(HARDWARE, PLATFORM);
+
+        // Known serial number: same chassis wherever it is reached
+
+        assertEquals(identity.chassisId(DEVICE_1), identity.chassisId(DEVICE_2));
+        assertEquals(identity.chassisId(DEVICE_1),
+                RestconfDeviceIdentity.parse(HARDWARE, null).chassisId(DEVICE_1));
+
+        // Unknown serial number: derived from the device identifier
+
+        RestconfDeviceIdentity unknown = RestconfDeviceIdentity.unknown();
+        assertEquals(unknown.chassisId(DEVICE_1), unknown.chassisId(DEVICE_1));
+        assertNotEquals(unknown.chassisId(DEVICE_1), unknown.chassisId(DEVICE_2));
+        assertTrue(unknown.chassisId(DEVICE_1).value() >= 0);
+    }
+
+    @Test
+    public void savedValues() {
+        RestconfDeviceIdentity identity = RestconfDeviceIdentity.parse(HARDWARE, PLATFORM);
+
+        assertEquals(identity, RestconfDeviceIdentity.of(identity.manufacturer(), identity.hwVersion(),
+                identity.swVersion(), identity.serialNumber()));
+        assertEquals(UNKNOWN, RestconfDeviceIdentity.of("Acme", "", null, UNKNOWN).swVersion());
+        assertFalse(RestconfDeviceIdentity.of("", null, UNKNOWN, "").isKnown());
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onosproject.net.DeviceId;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.onosproject.restconf.RestconfDeviceInfo.Field;
+
+/**
+ * Tests media type encoding, change detection and footprint of device information.
+ */
+public class RestconfDeviceInfoTest {
+    private static final IpAddress ADDRESS = IpAddress.valueOf("10.0.0.1");
+
+    private static RestconfDeviceInfo info(String userName, String password, boolean tls,
+                                           int timeout, String apiRoot, List<String> mediaTypes,
+                                           boolean adminUp) {
+        return new RestconfDeviceInfo(ADDRESS, 8080, tls, timeout, userName, password, null,
+                apiRoot, mediaTypes, adminUp);
+    }
+
+    private static RestconfDeviceInfo info(List<String> mediaTypes) {
+        return info("admin", "secret", false, 5000, "/restconf", mediaTypes, true);
+    }
+
+    @Test
+    public void mediaTypesInPreferenceOrder() {
+        assertEquals(ImmutableList.of("json", "xml"), info(ImmutableList.of("json", "xml")).getMediaTypes());
+        assertEquals(ImmutableList.of("xml", "json"), info(ImmutableList.of("xml", "json")).getMediaTypes());
+        assertEquals(ImmutableList.of("application/yang-data+json", "json"),
+                info(ImmutableList.of("application/yang-data+json", "json")).getMediaTypes());
+        assertEquals(ImmutableList.of("application/yang-data+json", "application/yang-data+xml", "json", "xml"),
+                info(ImmutableList.of("application/yang-data+json", "application/yang-data+xml",
+                        "json", "xml")).getMediaTypes());
+        assertTrue(info(ImmutableList.of()).getMediaTypes().isEmpty());
+    }
+
+    @Test
+    public void duplicateMediaTypesDropped() {
+        assertEquals(ImmutableList.of("xml", "json"), info(ImmutableList.of("xml", "json", "xml")).getMediaTypes());
+    }
+
+    @Test
+    public void mediaTypeListsShared() {
+        assertSame(info(ImmutableList.of("json", "xml")).getMediaTypes(),
+                info(ImmutableList.of("json", "xml", "json")).getMediaTypes());
+        assertNotSame(info(ImmutableList.of("json", "xml")).getMediaTypes(),
+                info(ImmutableList.of("xml", "json")).getMediaTypes());
+    }
+
+    @Test
+    public void mediaTypeReorderIsChange() {
+        assertEquals(ImmutableSet.of(Field.MEDIA_TYPES),
+                info(ImmutableList.of("json", "xml")).changedFields(info(ImmutableList.of("xml", "json"))));
+    }
+
+    @Test
+    public void smallerThanPlainFields() {
+        // Each device is given its own copies of the common strings and media type list, as
+        // the configuration parser produces them. Heap use is sampled after collection, so
+        // only the direction of the difference is checked; on a 64-bit JVM with compressed
+        // oops the compact layout measured about 430 bytes a device against about 570.
+
+        long plain = bytesPerDevice(i -> new PlainDeviceInfo(address(i), 8080, false, 5000,
+                new String("admin"), new String("secret"), new String("/etc/restconf/device.pem"),
+                new String("/restconf"), newMediaTypes(), true));
+        long compact = bytesPerDevice(i -> new RestconfDeviceInfo(address(i), 8080, false, 5000,
+                new String("admin"), new String("secret"), new String("/etc/restconf/device.pem"),
+                new String("/restconf"), newMediaTypes(), true));
+
+        assertTrue("compact " + compact + " bytes, plain " + plain + " bytes", compact < plain);
+    }
+
+    private static final int FOOTPRINT_DEVICES = 20000;
+
+    private static IpAddress address(int i) {
+        return IpAddress.valueOf((10 << 24) + i);
+    }
+
+    private static List<String> newMediaTypes() {
+        return new ArrayList<>(Arrays.asList(new String("json"), new String("xml")));
+    }
+
+    private static long bytesPerDevice(IntFunction<Object> factory) {
+        Object[] devices = new Object[FOOTPRINT_DEVICES];
+        long before = usedHeap();
+        for (int i = 0; i < devices.length; i++) {
+            devices[i] = factory.apply(i);
+        }
+        long after = usedHeap();
+        // Keeps the devices reachable until after the second sample
+        assertEquals(FOOTPRINT_DEVICES, devices.length);
+        return (after - before) / devices.length;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Device information held as one field per setting, as a baseline for the footprint
+     * measurement.
+     */
+    private static final class PlainDeviceInfo {
+        private final DeviceId deviceId;
+        private final IpAddress address;
+        private final int port;
+        private final boolean useTLS;
+        private final int socketTimeout;
+        private final String userName;
+        private final String password;
+        private final String certificatePath;
+        private final String apiRoot;
+        private final List<String> mediaTypes;
+        private final boolean isAdminUp;
+
+        PlainDeviceInfo(IpAddress address, int port, boolean tls, int socketTimeout,
+                        String userName, String password, String certificatePath,
+                        String apiRoot, List<String> mediaTypes, boolean adminUp) {
+            this.deviceId = RestconfDeviceInfo.createDeviceId(address, port);
+            this.address = address;
+            this.port = port;
+            this.useTLS = tls;
+            this.socketTimeout = socketTimeout;
+            this.userName = userName;
+            this.password = password;
+            this.certificatePath = certificatePath;
+            this.apiRoot = apiRoot;
+            this.mediaTypes = mediaTypes;
+            this.isAdminUp = adminUp;
+        }
+    }
+
+    @Test
+    public void unknownMediaTypeRejected() {
+        try {
+            info(ImmutableList.of("json", "yaml"));
+            fail("Unknown media type accepted");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("yaml"));
+            assertTrue(e.getMessage().contains(RestconfDeviceInfo.MEDIA_TYPES.toString()));
+        }
+    }
+
+    @Test
+    public void nothingChanged() {
+        assertTrue(info(ImmutableList.of("xml")).changedFields(info(ImmutableList.of("xml"))).isEmpty());
+    }
+
+    @Test
+    public void changedFields() {
+        RestconfDeviceInfo original = info("admin", "secret", false, 5000, "/restconf",
+                ImmutableList.of("xml"), true);
+
+        assertEquals(ImmutableSet.of(Field.USER_NAME, Field.PASSWORD),
+                original.changedFields(info("oper", "other", false, 5000, "/restconf",
+                        ImmutableList.of("xml"), true)));
+        assertEquals(ImmutableSet.of(Field.TLS, Field.SOCKET_TIMEOUT),
+                original.changedFields(info("admin", "secret", true, 1000, "/restconf",
+                        ImmutableList.of("xml"), true)));
+        assertEquals(ImmutableSet.of(Field.API_ROOT, Field.MEDIA_TYPES, Field.ADMIN_STATE),
+                original.changedFields(info("admin", "secret", false, 5000, "/api",
+                        ImmutableList.of("xml", "json"), false)));
+    }
+
+    @Test
+    public void adminStateChange() {
+        RestconfDeviceInfo original = info(ImmutableList.of("xml"));
+        RestconfDeviceInfo updated = info(ImmutableList.of("xml"));
+
+        updated.setAdminState(false);
+        assertEquals(ImmutableSet.of(Field.ADMIN_STATE), original.changedFields(updated));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void differentDevice() {
+        info(ImmutableList.of("xml")).changedFields(new RestconfDeviceInfo(ADDRESS, 8081, false,
+                5000, "admin", "secret", null, "/restconf", ImmutableList.of("xml"), true));
+    }
+}
@@ -15,13 +15,13 @@
  */
 package org.onosproject.restconf.ctl;
 
+import org.onosproject.net.DeviceId;
 import org.onosproject.restconf.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.net.Socket;
+import java.util.Collections;
+import java.util.Set;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 
@@ -34,16 +34,32 @@ public class DefaultRestconfDevice implements RestconfDevice {
 
     private RestconfDeviceInfo deviceInfo;
     private RestconfDeviceStateMachine stateMachine;
-    private RestconfSession restconfSession;
+    private volatile RestconfSession restconfSession;
+    private RestconfControllerImpl controller;
+
+    // Discovery results, cached so that they may be saved and restored across restarts
+
+    private volatile String apiRoot;
+    private volatile String moduleSetId = "";
+    private volatile String mediaType = "";
+    private volatile Set<String> capabilities = Collections.emptySet();
+    private volatile RestconfDeviceIdentity identity = RestconfDeviceIdentity.unknown();
+
+    // Cleared by a disconnect so that a connect still waiting for admission is dropped
+
+    private volatile boolean connectRequested;
 
     /**
      * Constructor for a RESTCONF device
      *
      * @param deviceInfo Initial device information
+     * @param controller Controller that owns this device
      */
-    public DefaultRestconfDevice(RestconfDeviceInfo deviceInfo) {
+    public DefaultRestconfDevice(RestconfDeviceInfo deviceInfo, RestconfControllerImpl controller) {
         this.deviceInfo = deviceInfo;
-        this.stateMachine = new RestconfDeviceStateMachine(this);
+        this.controller = controller;
+        this.apiRoot = deviceInfo.getApiRoot();
+        this.stateMachine = new RestconfDeviceStateMachine(this, controller);
     }
 
     /**
@@ -71,11 +87,29 @@ public class DefaultRestconfDevice implements RestconfDevice {
      *
      * This transitions the device into the 'DISCOVERY' state regardless of current state
      * unless already in the 'DISCOVERY' state.
+     *
+     * Entry into 'DISCOVERY' is subject to the controller's connection admission rate.
      */
     @Override
     public void start() {
-        // Transition the state machine to the initial 'DISCOVERY' state
+        connectRequested = true;
 
+        if (controller == null) {
+            connect();
+        } else {
+            controller.admitConnect(this, this::connect);
+        }
+    }
+
+    /**
+     * Transition the state machine to the initial 'DISCOVERY' state
+     */
+    private void connect() {
+        if (!connectRequested) {
+            log.debug("Device {} was disconnected while waiting to connect",
+                    getDeviceInfo().getDeviceId());
+            return;
+        }
         try {
             stateMachine.connect();
         } catch (RestconfDeviceStateMachineException ex) {
@@ -85,37 +119,101 @@ public class DefaultRestconfDevice implements RestconfDevice {
     }
 
     /**
-     * Connectivity test to remote device
-     *
-     * @param port Port number to try
+     * Restart the device from a snapshot saved by a previous run.
      *
-     * @return True if a Socket can be established
+     * @param snapshot previously saved device snapshot
      */
-    private boolean testConnection(int port) {
-        RestconfDeviceInfo info = getDeviceInfo();
-        String address = info.getIpAddress().toString();
-        Socket socket = null;
-        int timeout = info.getSocketTimeout();
+    @Override
+    public void resume(RestconfDeviceSnapshot snapshot) {
+        // Without discovery results there is nothing to resume from
 
-        try {
-            socket = new Socket();
-            socket.connect(new InetSocketAddress(address, port), timeout);
-            return socket.isConnected() && !socket.isClosed();
-
-        } catch (IOException e) {
-            log.info("Device {} is not reachable on port {}: {}", getDeviceInfo().getDeviceId(),
-                    port, e.toString());
-            return false;
-        } finally {
-            if (socket != null) {
+        if (snapshot == null || controller == null
+                || snapshot.getLastState() != RestconfDeviceStateMachine.ACTIVE
+                || snapshot.getModuleSetId().isEmpty()
+                || !snapshot.getDeviceId().equals(getDeviceInfo().getDeviceId())
+                || !getDeviceInfo().getAdminStateUp()) {
+            start();
+            return;
+        }
+        connectRequested = true;
+        apiRoot = snapshot.getApiRoot();
+        moduleSetId = snapshot.getModuleSetId();
+        mediaType = snapshot.getMediaType();
+        capabilities = snapshot.getCapabilities();
+        identity = snapshot.getIdentity();
+
+        // Liveness check is an asynchronous TCP connect probe. The result is handed
+        // back to the device event partition.
+
+        DeviceId id = getDeviceInfo().getDeviceId();
+
+        controller.probeReachability(getDeviceInfo()).thenAccept(alive -> {
+            controller.execute(id, () -> {
+                if (!connectRequested) {
+                    return;     // Disconnected while the probe was outstanding
+                }
+                if (!alive) {
+                    log.info("Device {} not reachable on warm restart, rediscovering", id);
+                    start();
+                    return;
+                }
                 try {
-                    socket.close();
-                } catch (IOException e) {
-                    log.debug("Test Socket failed {} on port {}: {}",
-                            getDeviceInfo().getDeviceId(), port, e.toString());
+                    stateMachine.resume();
+                } catch (RestconfDeviceStateMachineException ex) {
+                    log.warn("Warm restart of device {} failed: {}", id, ex.toString());
+                    start();
                 }
-            }
-        }
+            });
+        });
+    }
+
+    /**
+     * Get a snapshot of the discovery results and current state of this device
+     *
+     * @return device snapshot
+     */
+    @Override
+    public RestconfDeviceSnapshot getSnapshot() {
+        return new RestconfDeviceSnapshot(getDeviceInfo().getDeviceId(), apiRoot,
+                moduleSetId, mediaType, capabilities, identity, getState());
+    }
+
+    /**
+     * Get the RESTCONF API root, as discovered or as configured if not yet discovered
+     *
+     * @return API root
+     */
+    String getApiRoot() {
+        return apiRoot;
+    }
+
+    /**
+     * Get the identity the device reported about itself while it was populated
+     *
+     * @return device identity, unknown until the device has been populated
+     */
+    @Override
+    public RestconfDeviceIdentity getIdentity() {
+        return identity;
+    }
+
+    /**
+     * Record the results of device discovery.  Called by the state machine once the
+     * library is loaded, before the device goes ACTIVE.
+     *
+     * @param apiRoot      discovered RESTCONF API root
+     * @param moduleSetId  ietf-yang-library module-set-id
+     * @param mediaType    negotiated media type
+     * @param capabilities RESTCONF capability URIs advertised by the device
+     * @param identity     identity reported by the device
+     */
+    void setDiscoveryResults(String apiRoot, String moduleSetId, String mediaType,
+                             Set<String> capabilities, RestconfDeviceIdentity identity) {
+        this.apiRoot = apiRoot;
+        this.moduleSetId = moduleSetId;
+        this.mediaType = mediaType;
+        this.capabilities = Collections.unmodifiableSet(capabilities);
+        this.identity = identity;
     }
 
     /**
@@ -129,7 +227,8 @@ public class DefaultRestconfDevice implements RestconfDevice {
     public boolean isReachable() {
         switch (getState()) {
             case RestconfDeviceStateMachine.IDLE:
-                return testConnection(getDeviceInfo().getPort());
+                // Cached result of the shared prober, never blocks
+                return controller != null && controller.isReachable(getDeviceInfo());
 
             case RestconfDeviceStateMachine.DISCOVERY:
             case RestconfDeviceStateMachine.POPULATE:
@@ -137,7 +236,7 @@ public class DefaultRestconfDevice implements RestconfDevice {
                 return true;
 
             case RestconfDeviceStateMachine.INACTIVE:
-            case RestconfDeviceStateMachine.ERROR:
+            case RestconfDeviceStateMachine.FAILED:
                 return false;
         }
         return false;
@@ -164,12 +263,73 @@ public class DefaultRestconfDevice implements RestconfDevice {
     }
 
     /**
-     * Ensures that all sessions are closed.
-     * A device cannot be used after disconnect is called.
+     * Ensures that all sessions are closed.  The device returns to the 'IDLE' state,
+     * dropping its discovery results, and is not reconnected until it is started again.
      */
     @Override
     public void disconnect() {
-        // TODO: Implement this
+        connectRequested = false;
+
+        RestconfSession session = restconfSession;
+        restconfSession = null;
+
+        if (session != null) {
+            try {
+                session.close();
+            } catch (RestconfException ex) {
+                log.warn("Unable to close session to device {}: {}",
+                        getDeviceInfo().getDeviceId(), ex.toString());
+            }
+        }
+        try {
+            stateMachine.disconnect();
+        } catch (RestconfDeviceStateMachineException ex) {
+            log.warn("Disconnect of device {} failed: {}", getDeviceInfo().getDeviceId(), ex.toString());
+        }
+        // Discovered anew on the next connect
+
+        setDiscoveryResults(getDeviceInfo().getApiRoot(), "", "", Collections.emptySet(),
+                RestconfDeviceIdentity.unknown());
+    }
+
+    @Override
+    public void setAdminState(boolean adminUp) {
+        getDeviceInfo().setAdminState(adminUp);
+
+        if (controller == null) {
+            changeAdminState(adminUp);
+        } else {
+            controller.execute(getDeviceInfo().getDeviceId(), () -> changeAdminState(adminUp));
+        }
+    }
+
+    /**
+     * Drive the state machine for an administrative state change.  Only ACTIVE and
+     * INACTIVE devices have a transition for it, in any other state the new admin
+     * state is picked up on the next connect.
+     */
+    private void changeAdminState(boolean adminUp) {
+        int state = getState();
+
+        try {
+            if (!adminUp && state == RestconfDeviceStateMachine.ACTIVE) {
+                stateMachine.adminStatusDown();
+
+            } else if (adminUp && state == RestconfDeviceStateMachine.INACTIVE) {
+                stateMachine.adminStatusUp();
+            }
+        } catch (RestconfDeviceStateMachineException ex) {
+            log.warn("Admin state change of device {} failed: {}",
+                    getDeviceInfo().getDeviceId(), ex.toString());
+        }
+    }
+
+    /**
+     * Stop the device for good once it is removed from the controller.  Any pending
+     * reconnect attempt is cancelled and no new ones are scheduled.
+     */
+    void remove() {
+        stateMachine.stop();
     }
 
     /**
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.ctl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.onosproject.net.DeviceId;
+import org.slf4j.Logger;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Applies a per-device operation to a large collection of devices with bounded
+ * parallelism.
+ * <p>
+ * The collection is split into batches and at most 'parallelism' workers pull
+ * batches until none remain, so onboarding tens of thousands of devices neither
+ * runs serially nor floods the executor with one task per device.
+ *
+ * @param <T> type of the items operated on
+ */
+public class RestconfBulkOperation<T> {
+    private final Logger log = getLogger(getClass());
+
+    public static final int DEFAULT_BATCH_SIZE = 128;
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    private final String name;
+    private final Function<T, DeviceId> idOf;
+    private final Predicate<T> operation;
+    private final Iterator<List<T>> batches;        // Guarded by 'this'
+    private final Map<DeviceId, Boolean> results = new ConcurrentHashMap<>();
+    private final CompletableFuture<Map<DeviceId, Boolean>> future = new CompletableFuture<>();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final int parallelism;
+
+    /**
+     * Create a bulk operation
+     *
+     * @param name        operation name used in log messages
+     * @param items       items to operate on
+     * @param idOf        function returning the device ID of an item
+     * @param operation   per-device operation, returns true on success
+     * @param batchSize   number of items handed to a worker at once
+     * @param parallelism maximum number of concurrent workers
+     */
+    public RestconfBulkOperation(String name, Collection<T> items, Function<T, DeviceId> idOf,
+                                 Predicate<T> operation, int batchSize, int parallelism) {
+        List<List<T>> partitions = Lists.partition(ImmutableList.copyOf(items), batchSize);
+
+        this.name = name;
+        this.idOf = idOf;
+        this.operation = operation;
+        this.batches = partitions.iterator();
+        this.parallelism = Math.min(parallelism, partitions.size());
+    }
+
+    /**
+     * Start the operation
+     *
+     * @param executor executor to run the workers on
+     *
+     * @return future completed with the per-device results once every item is done
+     */
+    public CompletableFuture<Map<DeviceId, Boolean>> start(Executor executor) {
+        if (parallelism == 0) {
+            future.complete(Collections.emptyMap());
+            return future;
+        }
+        activeWorkers.set(parallelism);
+
+        for (int worker = 0; worker < parallelism; worker++) {
+            try {
+                executor.execute(this::runWorker);
+            } catch (RuntimeException e) {
+                // Remaining workers pick up the batches this one would have run
+
+                log.warn("Bulk {}: could not start worker: {}", name, e.toString());
+                workerDone();
+            }
+        }
+        return future;
+    }
+
+    private synchronized List<T> nextBatch() {
+        return batches.hasNext() ? batches.next() : null;
+    }
+
+    private void runWorker() {
+        List<T> batch;
+
+        while ((batch = nextBatch()) != null) {
+            for (T item : batch) {
+                DeviceId id = idOf.apply(item);
+
+                try {
+                    results.put(id, operation.test(item));
+                } catch (RuntimeException e) {
+                    log.warn("Bulk {} failed for {}: {}", name, id, e.toString());
+                    results.put(id, false);
+                }
+            }
+        }
+        workerDone();
+    }
+
+    private void workerDone() {
+        if (activeWorkers.decrementAndGet() == 0) {
+            // Any batches left here had no worker to run them
+
+            List<T> batch;
+
+            while ((batch = nextBatch()) != null) {
+                batch.forEach(item -> results.put(idOf.apply(item), false));
+            }
+            log.debug("Bulk {} complete: {} devices", name, results.size());
+            future.complete(Collections.unmodifiableMap(results));
+        }
+    }
+}
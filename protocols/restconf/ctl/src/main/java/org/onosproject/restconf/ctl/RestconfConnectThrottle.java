@@ -0,0 +1,214 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.ctl;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import org.onosproject.net.DeviceId;
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Token-bucket admission gate for devices entering the DISCOVERY state.
+ * <p>
+ * After a controller restart or a management network flap every device will attempt
+ * to reconnect at once. Connection attempts are admitted at a configurable rate with
+ * a configurable burst so that shared resources (AAA, TLS handshakes, ...) see a
+ * smooth ramp instead of a thundering herd. Devices that are administratively up are
+ * admitted ahead of those that are not.  A device waits in the queue at most once, a
+ * repeated request while it is waiting is dropped.
+ */
+public class RestconfConnectThrottle {
+    private final Logger log = getLogger(getClass());
+
+    public static final int DEFAULT_CONNECT_RATE = 50;      // Connections per second
+    public static final int DEFAULT_CONNECT_BURST = 100;    // Bucket size
+
+    private final Timer timer;
+    private final Queue<Admission> priorityQueue = new ArrayDeque<>();
+    private final Queue<Admission> normalQueue = new ArrayDeque<>();
+    private final Set<DeviceId> waiting = new HashSet<>();
+
+    private double rate;            // Tokens added per second
+    private double burst;           // Maximum tokens held
+    private double tokens;
+    private long lastRefill;        // System.nanoTime() of last refill
+    private Timeout drainTimeout;
+
+    /**
+     * A connection attempt waiting for admission
+     */
+    private static final class Admission {
+        private final DeviceId deviceId;
+        private final Runnable action;
+
+        private Admission(DeviceId deviceId, Runnable action) {
+            this.deviceId = deviceId;
+            this.action = action;
+        }
+    }
+
+    /**
+     * Create a connection admission throttle
+     *
+     * @param timer timer used to schedule admission of queued requests
+     * @param rate  number of connection attempts admitted per second
+     * @param burst maximum number of connection attempts admitted at once
+     */
+    public RestconfConnectThrottle(Timer timer, int rate, int burst) {
+        this.timer = timer;
+        this.lastRefill = System.nanoTime();
+        this.rate = DEFAULT_CONNECT_RATE;
+        this.burst = DEFAULT_CONNECT_BURST;
+        setRate(rate, burst);
+        this.tokens = this.burst;
+    }
+
+    /**
+     * Change the admission rate and burst size.  Values that are not positive are
+     * ignored and the current rate and burst size kept.
+     *
+     * @param rate  number of connection attempts admitted per second
+     * @param burst maximum number of connection attempts admitted at once
+     *
+     * @return true if the new rate and burst size were applied
+     */
+    public synchronized boolean setRate(int rate, int burst) {
+        if ((rate <= 0) || (burst <= 0)) {
+            log.warn("Invalid connect rate {}/s burst {}, keeping {}/s burst {}",
+                    rate, burst, (int) this.rate, (int) this.burst);
+            return false;
+        }
+        refill();
+        this.rate = rate;
+        this.burst = burst;
+        this.tokens = Math.min(tokens, this.burst);
+        drain();
+        return true;
+    }
+
+    /**
+     * Request admission of a connection attempt.  The action is run immediately on the
+     * calling thread if a token is available, otherwise it is queued and run from the
+     * timer thread once a token becomes available.  Actions should therefore only hand
+     * work off to another executor.
+     *
+     * @param deviceId device requesting admission
+     * @param priority true if this request should be admitted ahead of non-priority requests
+     * @param action   action to run once admitted
+     *
+     * @return false if the device was already waiting for admission and this request
+     * was dropped
+     */
+    public synchronized boolean admit(DeviceId deviceId, boolean priority, Runnable action) {
+        if (!waiting.add(deviceId)) {
+            return false;
+        }
+        Admission admission = new Admission(deviceId, action);
+
+        if (priority) {
+            priorityQueue.add(admission);
+        } else {
+            normalQueue.add(admission);
+        }
+        drain();
+        return true;
+    }
+
+    /**
+     * Get the number of connection attempts waiting for admission
+     *
+     * @return queue depth
+     */
+    public synchronized int getQueueDepth() {
+        return priorityQueue.size() + normalQueue.size();
+    }
+
+    /**
+     * Drop all queued requests and stop any pending admission timer
+     */
+    public synchronized void clear() {
+        priorityQueue.clear();
+        normalQueue.clear();
+        waiting.clear();
+
+        if (drainTimeout != null) {
+            drainTimeout.cancel();
+            drainTimeout = null;
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+
+        tokens = Math.min(burst, tokens + ((now - lastRefill) * rate) / TimeUnit.SECONDS.toNanos(1));
+        lastRefill = now;
+    }
+
+    private void drain() {
+        refill();
+
+        while (tokens >= 1.0) {
+            Admission admission = priorityQueue.poll();
+
+            if (admission == null) {
+                admission = normalQueue.poll();
+            }
+            if (admission == null) {
+                return;
+            }
+            tokens -= 1.0;
+            waiting.remove(admission.deviceId);
+
+            try {
+                admission.action.run();
+            } catch (RuntimeException e) {
+                log.warn("Connection admission action failed: {}", e.toString());
+            }
+        }
+        if (getQueueDepth() > 0 && drainTimeout == null) {
+            // Wake up once the next token is available
+
+            long delay = (long) Math.ceil(((1.0 - tokens) * TimeUnit.SECONDS.toMillis(1)) / rate);
+
+            drainTimeout = timer.newTimeout(timeout -> onDrainTimeout(), Math.max(delay, 1),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void onDrainTimeout() {
+        drainTimeout = null;
+        drain();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return toStringHelper(this)
+                .add("rate", rate)
+                .add("burst", burst)
+                .add("tokens", tokens)
+                .add("queueDepth", getQueueDepth())
+                .toString();
+    }
+}
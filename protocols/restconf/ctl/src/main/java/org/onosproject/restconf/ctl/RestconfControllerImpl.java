@@ -15,11 +15,20 @@
  */
 package org.onosproject.restconf.ctl;
 
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
+import org.apache.felix.scr.annotations.Reference;
+import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
 import org.onlab.packet.IpAddress;
+import org.onlab.util.Tools;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.net.DeviceId;
 import org.onosproject.restconf.*;
 import org.slf4j.Logger;
@@ -27,13 +36,26 @@ import org.slf4j.LoggerFactory;
 
 import org.osgi.service.component.ComponentContext;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Dictionary;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+import static com.google.common.base.Strings.isNullOrEmpty;
 import static org.onlab.util.Tools.groupedThreads;
 
 /**
@@ -46,29 +68,409 @@ public class RestconfControllerImpl implements RestconfController {
     public static final Logger log = LoggerFactory
             .getLogger(RestconfControllerImpl.class);
 
+    public static final int DEFAULT_WORKER_THREADS = 5;
+    private static final long WORKER_DRAIN_TIMEOUT_SEC = 30;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected ComponentConfigService cfgService;
+
+    @Property(name = "connectRate", intValue = RestconfConnectThrottle.DEFAULT_CONNECT_RATE,
+            label = "Maximum number of devices admitted to DISCOVERY per second")
+    private int connectRate = RestconfConnectThrottle.DEFAULT_CONNECT_RATE;
+
+    @Property(name = "connectBurst", intValue = RestconfConnectThrottle.DEFAULT_CONNECT_BURST,
+            label = "Maximum number of devices admitted to DISCOVERY at once")
+    private int connectBurst = RestconfConnectThrottle.DEFAULT_CONNECT_BURST;
+
     private Map<DeviceId, RestconfDevice> restconfDeviceMap = new ConcurrentHashMap<>();
 
+    // Secondary index by management address, updated together with restconfDeviceMap
+    // so that inbound notifications and address lookups stay constant time.
+
+    private final Map<AddressKey, RestconfDevice> addressIndex = new ConcurrentHashMap<>();
+
+    // Per-state device index, maintained incrementally on each state transition so that
+    // 'how many devices are FAILED' or 'list the ACTIVE devices' does not require
+    // walking every device.
+
+    private final Map<DeviceId, Integer> indexedState = new ConcurrentHashMap<>();
+    private final Set<DeviceId>[] devicesByState = newStateSets();
+    private final AtomicInteger[] deviceCountByState = newStateCounters();
+
     //private final RestconfDeviceOutputEventListener downListener = new DeviceDownEventListener();
 
     protected Set<RestconfDeviceListener> restconfDeviceListeners = new CopyOnWriteArraySet<>();
+    protected Set<RestconfDeviceStateListener> stateListeners = new CopyOnWriteArraySet<>();
+
+    // Listener callbacks are dispatched on a thread per listener, so a slow application
+    // listener never stalls device I/O threads.  Device lifecycle and state events must
+    // never be lost and are queued with backpressure.  Device output is high volume and
+    // goes through a ring buffer, a listener that falls a full ring behind skips events.
+
+    protected RestconfEventQueue<Consumer<RestconfDeviceListener>> deviceEventQueue =
+            new RestconfEventQueue<>("device-event", RestconfEventQueue.DEFAULT_CAPACITY);
+    protected RestconfEventQueue<RestconfDeviceStateEvent> stateEventQueue =
+            new RestconfEventQueue<>("state-event", RestconfEventQueue.DEFAULT_CAPACITY);
+    protected RestconfEventRing<RestconfDeviceOutputEvent> outputEventRing =
+            new RestconfEventRing<>("output-event", RestconfEventRing.DEFAULT_CAPACITY);
+
+    // Output listeners for a single device (sessions) share one ring consumer
+
+    private static final String DEVICE_OUTPUT_CONSUMER = "device-output";
+    private final Map<DeviceId, Set<RestconfDeviceOutputEventListener>> deviceOutputListeners =
+            new ConcurrentHashMap<>();
+
+    private final RestconfSessionDelegate sessionDelegate = outputEventRing::publish;
+
     protected RestconfDeviceFactory deviceFactory = new DefaultRestconfDeviceFactory();
 
-    private int workerThreads = 5;  // TODO: Make this a configuration varioable
+    // Per-device work is hash partitioned by device ID onto single-threaded workers so
+    // events for the same device are always handled in order.
+
+    private int workerThreads = DEFAULT_WORKER_THREADS;
+
+    protected volatile RestconfPartitionedExecutor deviceExecutor =
+            new RestconfPartitionedExecutor(workerThreads, "onos/restconf", "rx-", log);
+
+    // Blocking device operations run separately from the device partitions so that a
+    // slow device can not stall event processing for the other devices on its partition.
+
+    private static final int BLOCKING_PLATFORM_THREADS = 16;
+
+    private RestconfExecutionMode executionMode = RestconfExecutionMode.PLATFORM;
+
+    protected volatile ExecutorService blockingExecutor =
+            executionMode.newExecutor(BLOCKING_PLATFORM_THREADS,
+                    groupedThreads("onos/restconf", "blocking-%d", log));
+
+    // Single hashed-wheel timer shared by all devices for retries, poll ticks, probe
+    // timeouts and batching windows. Insert and cancel are O(1) so tens of thousands of
+    // pending timeouts are cheap; the trade off is a TIMER_TICK_MS resolution.
+
+    private static final long TIMER_TICK_MS = 100;
+    private static final int TIMER_WHEEL_SIZE = 1024;
+
+    protected HashedWheelTimer timer =
+            new HashedWheelTimer(groupedThreads("onos/restconf", "timer", log),
+                    TIMER_TICK_MS, TimeUnit.MILLISECONDS, TIMER_WHEEL_SIZE);
+
+    protected RestconfConnectThrottle connectThrottle =
+            new RestconfConnectThrottle(timer, connectRate, connectBurst);
+
+    // Reachability checks are non-blocking connects on one shared selector thread,
+    // with results cached briefly so isReachable() never blocks its caller.
+
+    protected RestconfReachabilityProber prober =
+            new RestconfReachabilityProber(timer, RestconfReachabilityProber.DEFAULT_RESULT_TTL_MS);
+
+    protected RestconfProbeBatcher probeBatcher =
+            new RestconfProbeBatcher(timer, this::execute, RestconfProbeBatcher.DEFAULT_BATCH_WINDOW_MS,
+                    RestconfProbeBatcher.DEFAULT_MAX_IN_FLIGHT);
 
-    protected ExecutorService executorRxMsgs =
-            Executors.newFixedThreadPool(workerThreads, groupedThreads("onos/netconf", "rx-%d",
-                    log));
     @Activate
     public void activate(ComponentContext context) {
+        cfgService.registerProperties(getClass());
+        timer.start();
+        try {
+            prober.start();
+        } catch (IOException e) {
+            log.error("Unable to start reachability prober: {}", e.toString());
+        }
+        probeBatcher.start();
+        outputEventRing.addConsumer(DEVICE_OUTPUT_CONSUMER, this::dispatchDeviceOutput);
+        modified(context);
         log.info("Started");
     }
 
     @Deactivate
     public void deactivate() {
-        restconfDeviceMap.clear();
+        cfgService.unregisterProperties(getClass(), false);
+        connectThrottle.clear();
+        prober.stop();
+        probeBatcher.stop();
+        timer.stop();
+        deviceExecutor.shutdownNow();
+        blockingExecutor.shutdownNow();
+        deviceEventQueue.shutdown();
+        stateEventQueue.shutdown();
+        outputEventRing.shutdown();
+        deviceOutputListeners.clear();
+        restconfDeviceMap.keySet().forEach(this::unregisterDevice);
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context == null) {
+            log.info("No configuration file");
+            return;
+        }
+        Dictionary<?, ?> properties = context.getProperties();
+
+        int rate = getIntegerProperty(properties, "connectRate", connectRate);
+        int burst = getIntegerProperty(properties, "connectBurst", connectBurst);
+
+        if (connectThrottle.setRate(rate, burst)) {
+            connectRate = rate;
+            connectBurst = burst;
+        }
+        log.info("Settings: connectRate={}, connectBurst={}", connectRate, connectBurst);
+    }
+
+    private static int getIntegerProperty(Dictionary<?, ?> properties, String name, int defValue) {
+        String value = Tools.get(properties, name);
+
+        try {
+            return isNullOrEmpty(value) ? defValue : Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            log.warn("Invalid {} value '{}', using {}", name, value, defValue);
+            return defValue;
+        }
+    }
+
+    /**
+     * Schedule a one-shot per-device task on the shared wheel timer.
+     * <p>
+     * The timer thread only hands the task off to the device's worker partition when it
+     * expires so that a slow task can never delay the expiration of other timeouts.
+     *
+     * @param deviceId device the task is for
+     * @param task     task to run
+     * @param delay    delay before running the task
+     * @param unit     time unit of the delay
+     *
+     * @return timeout handle that may be used to cancel the task
+     */
+    Timeout schedule(DeviceId deviceId, Runnable task, long delay, TimeUnit unit) {
+        return timer.newTimeout(timeout -> execute(deviceId, task), delay, unit);
+    }
+
+    /**
+     * Start an asynchronous TCP connect probe of a device
+     *
+     * @param info device to probe
+     *
+     * @return future completed with true if the device accepted a connection
+     */
+    CompletableFuture<Boolean> probeReachability(RestconfDeviceInfo info) {
+        return prober.probe(info.getDeviceId(), socketAddress(info), info.getSocketTimeout());
+    }
+
+    @Override
+    public CompletableFuture<Boolean> probeDevice(DeviceId deviceId) {
+        RestconfDevice device = getDevice(deviceId);
+
+        if (device == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        RestconfDeviceInfo info = device.getDeviceInfo();
+
+        if (!RestconfProbeBatcher.isSupported(info)) {
+            // No RESTCONF over TLS yet, a TCP connect is the best we can do
+
+            return probeReachability(info);
+        }
+        return probeBatcher.probe(info, resourceUrl(device, RestconfProbeBatcher.PROBE_RESOURCE));
+    }
+
+    @Override
+    public CompletableFuture<String> pollResource(DeviceId deviceId, String resource) {
+        RestconfDevice device = getDevice(deviceId);
+
+        if (device == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return probeBatcher.fetch(device.getDeviceInfo(), resourceUrl(device, resource));
+    }
+
+    @Override
+    public CompletableFuture<String> getResource(DeviceId deviceId, String resource) {
+        RestconfDevice device = getDevice(deviceId);
+
+        if (device == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return probeBatcher.get(device.getDeviceInfo(), resourceUrl(device, resource));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> patchResource(DeviceId deviceId, String resource, String content) {
+        RestconfDevice device = getDevice(deviceId);
+
+        if (device == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return probeBatcher.patch(device.getDeviceInfo(), resourceUrl(device, resource), content);
+    }
+
+    /**
+     * Read a resource of a device by URL.  Used by discovery, before the device's API
+     * root is known.
+     *
+     * @param info      device to query
+     * @param url       URL of the resource
+     * @param mediaType media type to accept
+     *
+     * @return future completed with the resource content, or null if the request failed
+     */
+    CompletableFuture<String> getUrl(RestconfDeviceInfo info, String url, String mediaType) {
+        return probeBatcher.get(info, url, mediaType);
+    }
+
+    /**
+     * Build the URL of a resource under a device's RESTCONF API root
+     *
+     * @param device   device
+     * @param resource resource path relative to the API root
+     *
+     * @return resource URL
+     */
+    private static String resourceUrl(RestconfDevice device, String resource) {
+        RestconfDeviceInfo info = device.getDeviceInfo();
+        String apiRoot = (device instanceof DefaultRestconfDevice) ?
+                ((DefaultRestconfDevice) device).getApiRoot() : info.getApiRoot();
+
+        return info.getBaseURL() + apiRoot + resource;
+    }
+
+    /**
+     * Get the most recent reachability probe result for a device without blocking.
+     * A stale result triggers a new probe in the background.
+     *
+     * @param info device to look up
+     *
+     * @return true if the device was reachable when last probed
+     */
+    boolean isReachable(RestconfDeviceInfo info) {
+        return prober.isReachable(info.getDeviceId(), socketAddress(info), info.getSocketTimeout());
+    }
+
+    private static InetSocketAddress socketAddress(RestconfDeviceInfo info) {
+        return new InetSocketAddress(info.getIpAddress().toInetAddress(), info.getPort());
+    }
+
+    /**
+     * Run a per-device task on the worker partition for that device
+     *
+     * @param deviceId device the task is for
+     * @param task     task to run
+     */
+    void execute(DeviceId deviceId, Runnable task) {
+        RestconfPartitionedExecutor executor = deviceExecutor;
+
+        try {
+            executor.execute(deviceId, task);
+        } catch (RejectedExecutionException e) {
+            // Raced with a resize, hand the task to the new partitions
+
+            if (executor == deviceExecutor) {
+                throw e;
+            }
+            deviceExecutor.execute(deviceId, task);
+        }
+    }
+
+    @Override
+    public synchronized void setWorkerThreads(int numThreads) {
+        if (numThreads <= 0 || numThreads == workerThreads) {
+            return;
+        }
+        RestconfPartitionedExecutor previous = deviceExecutor;
+        RestconfPartitionedExecutor next =
+                new RestconfPartitionedExecutor(numThreads, "onos/restconf", "rx-", log);
+
+        // Changing the number of partitions changes which partition a device maps to.
+        // To keep per-device ordering, every new partition first waits for the old
+        // partitions to drain the work already queued on them before running anything
+        // new.  The barrier is queued before the new executor is published, and the
+        // previous executor is only shut down once it is no longer published so that
+        // callers racing with the resize are never rejected by it.
+
+        next.executeOnAll(() -> awaitDrain(previous));
+        deviceExecutor = next;
+        workerThreads = numThreads;
+
+        previous.shutdown();
+
+        log.info("Device worker partitions resized to {}", numThreads);
+    }
+
+    private static void awaitDrain(RestconfPartitionedExecutor previous) {
+        try {
+            if (!previous.awaitTermination(WORKER_DRAIN_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+                log.warn("Previous device workers did not drain within {} seconds",
+                        WORKER_DRAIN_TIMEOUT_SEC);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public synchronized void setExecutionMode(RestconfExecutionMode mode) {
+        if (mode == null || mode == executionMode) {
+            return;
+        }
+        ExecutorService previous = blockingExecutor;
+        ExecutorService next = mode.newExecutor(BLOCKING_PLATFORM_THREADS,
+                groupedThreads("onos/restconf", "blocking-%d", log));
+
+        // Publish the new executor before shutting down the previous one. Operations
+        // already started on the previous executor are allowed to finish.
+
+        blockingExecutor = next;
+        executionMode = mode;
+
+        previous.shutdown();
+        log.info("Blocking operation execution mode: {}", mode);
+    }
+
+    @Override
+    public Timer getTimer() {
+        return timer;
+    }
+
+    @Override
+    public Executor getBlockingExecutor() {
+        return task -> {
+            ExecutorService executor = blockingExecutor;
+
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // Raced with an execution mode change
+
+                if (executor == blockingExecutor) {
+                    throw e;
+                }
+                blockingExecutor.execute(task);
+            }
+        };
+    }
+
+    /**
+     * Request admission of a device into the DISCOVERY state.
+     * <p>
+     * Admission is rate limited across all devices. Once admitted the connect action
+     * is run on the device's worker partition.
+     *
+     * @param device  device requesting admission
+     * @param connect action that starts the connection attempt
+     */
+    void admitConnect(RestconfDevice device, Runnable connect) {
+        RestconfDeviceInfo info = device.getDeviceInfo();
+
+        if (!connectThrottle.admit(info.getDeviceId(), info.getAdminStateUp(),
+                () -> execute(info.getDeviceId(), connect))) {
+            log.debug("Device {} is already waiting to connect", info.getDeviceId());
+        }
+    }
+
+    @Override
+    public int getConnectQueueDepth() {
+        return connectThrottle.getQueueDepth();
+    }
+
     /**
      * Returns all devices known to this RESTCONF controller.
      *
@@ -99,7 +501,7 @@ public class RestconfControllerImpl implements RestconfController {
      * @return RestconfDevice RESTCONF device
      */
     public RestconfDevice getDevice(IpAddress ip, int port) {
-        return null; // TODO: Implement this
+        return ip == null ? null : addressIndex.get(new AddressKey(ip, port));
     }
     /**
      * Create a RESTCONF device object
@@ -109,19 +511,277 @@ public class RestconfControllerImpl implements RestconfController {
      * @return
      */
     public RestconfDevice createDevice(RestconfDeviceInfo devInfo) {
-        return deviceFactory.createRestconfDevice(devInfo);
+        return registerDevice(deviceFactory.createRestconfDevice(devInfo));
+    }
+
+    /**
+     * Add a device to the set of devices managed by this controller
+     *
+     * @param device device to add
+     *
+     * @return the registered device, which may be a previously registered device with
+     * the same device ID
+     */
+    private RestconfDevice registerDevice(RestconfDevice device) {
+        DeviceId id = device.getDeviceInfo().getDeviceId();
+
+        // The address index is updated inside the per-key compute so that the two maps
+        // never disagree for a given device.  Note that the device ID is derived from
+        // the address and port, so a modified device can never move in the index.
+
+        RestconfDevice registered = restconfDeviceMap.computeIfAbsent(id, key -> {
+            addressIndex.put(AddressKey.of(device.getDeviceInfo()), device);
+            return device;
+        });
+        if (registered == device) {
+            updateStateIndex(id);
+
+            if (!RestconfProbeBatcher.isSupported(device.getDeviceInfo())) {
+                log.warn("Device {} is configured for TLS, which is not supported yet. " +
+                        "It will not be discovered or polled.", id);
+            }
+
+            // Warm the reachability cache so a mastership decision that follows soon
+            // after registration does not find it empty
+
+            probeReachability(device.getDeviceInfo());
+        }
+        return registered;
+    }
+
+    /**
+     * Remove a device from the set of devices managed by this controller
+     *
+     * @param id device to remove
+     *
+     * @return removed device or null if it was not found
+     */
+    private RestconfDevice unregisterDevice(DeviceId id) {
+        RestconfDevice[] removed = new RestconfDevice[1];
+
+        restconfDeviceMap.computeIfPresent(id, (key, device) -> {
+            addressIndex.remove(AddressKey.of(device.getDeviceInfo()), device);
+            removed[0] = device;
+            return null;
+        });
+        RestconfDevice device = removed[0];
+
+        prober.invalidate(id);
+
+        if (device != null) {
+            probeBatcher.invalidate(device.getDeviceInfo().getBaseURL() + "/");
+
+            if (device instanceof DefaultRestconfDevice) {
+                ((DefaultRestconfDevice) device).remove();
+            }
+        }
+
+        indexedState.computeIfPresent(id, (key, state) -> {
+            devicesByState[state].remove(key);
+            deviceCountByState[state].decrementAndGet();
+            return null;
+        });
+        return device;
+    }
+
+    /**
+     * Move a device to the index bucket for its current state.
+     * <p>
+     * The state is read inside the per-key compute so that transition notifications
+     * that arrive out of order still leave the device in its latest state.
+     *
+     * @param id device to update
+     */
+    private void updateStateIndex(DeviceId id) {
+        indexedState.compute(id, (key, oldState) -> {
+            RestconfDevice device = restconfDeviceMap.get(key);
+
+            if (device == null) {
+                if (oldState != null) {
+                    devicesByState[oldState].remove(key);
+                    deviceCountByState[oldState].decrementAndGet();
+                }
+                return null;
+            }
+            int state = device.getState();
+
+            if (oldState != null) {
+                if (oldState == state) {
+                    return oldState;
+                }
+                devicesByState[oldState].remove(key);
+                deviceCountByState[oldState].decrementAndGet();
+            }
+            devicesByState[state].add(key);
+            deviceCountByState[state].incrementAndGet();
+            return state;
+        });
+    }
+
+    private static Set<DeviceId>[] newStateSets() {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Set<DeviceId>[] sets = new Set[RestconfDeviceState.NUM_STATES];
+
+        for (int state = 0; state < sets.length; state++) {
+            sets[state] = ConcurrentHashMap.newKeySet();
+        }
+        return sets;
+    }
+
+    private static AtomicInteger[] newStateCounters() {
+        AtomicInteger[] counters = new AtomicInteger[RestconfDeviceState.NUM_STATES];
+
+        for (int state = 0; state < counters.length; state++) {
+            counters[state] = new AtomicInteger();
+        }
+        return counters;
+    }
+
+    @Override
+    public int getDeviceCount(int state) {
+        checkState(state);
+        return deviceCountByState[state].get();
+    }
+
+    @Override
+    public Set<DeviceId> getDeviceIds(int state) {
+        checkState(state);
+        return Collections.unmodifiableSet(devicesByState[state]);
+    }
+
+    private static void checkState(int state) {
+        if (state < 0 || state >= RestconfDeviceState.NUM_STATES) {
+            throw new IllegalArgumentException("Invalid RESTCONF device state: " + state);
+        }
     }
 
     @Override
     public void addDeviceListener(RestconfDeviceListener listener) {
-        if (!restconfDeviceListeners.contains(listener)) {
-            restconfDeviceListeners.add(listener);
+        if (restconfDeviceListeners.add(listener)) {
+            deviceEventQueue.addConsumer(listener, notification -> notification.accept(listener));
         }
     }
 
     @Override
     public void removeDeviceListener(RestconfDeviceListener listener) {
         restconfDeviceListeners.remove(listener);
+        deviceEventQueue.removeConsumer(listener);
+    }
+
+    @Override
+    public void addStateListener(RestconfDeviceStateListener listener) {
+        if (stateListeners.add(listener)) {
+            stateEventQueue.addConsumer(listener, event -> {
+                if (listener.isRelevant(event)) {
+                    listener.event(event);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void removeStateListener(RestconfDeviceStateListener listener) {
+        stateListeners.remove(listener);
+        stateEventQueue.removeConsumer(listener);
+    }
+
+    @Override
+    public void addOutputListener(RestconfDeviceOutputEventListener listener) {
+        outputEventRing.addConsumer(listener, event -> {
+            if (listener.isRelevant(event)) {
+                listener.event(event);
+            }
+        });
+    }
+
+    @Override
+    public void removeOutputListener(RestconfDeviceOutputEventListener listener) {
+        outputEventRing.removeConsumer(listener);
+    }
+
+    /**
+     * Number of events published to a listener that it has not yet processed
+     *
+     * @param listener device, state or device output listener
+     *
+     * @return listener lag, or -1 if the listener is not registered
+     */
+    public long getListenerLag(Object listener) {
+        return Math.max(deviceEventQueue.getLag(listener),
+                Math.max(stateEventQueue.getLag(listener), outputEventRing.getLag(listener)));
+    }
+
+    /**
+     * Delegate that sessions use to publish device output events
+     *
+     * @return session delegate
+     */
+    RestconfSessionDelegate getSessionDelegate() {
+        return sessionDelegate;
+    }
+
+    /**
+     * Add a listener for the output events of one device
+     *
+     * @param deviceId device whose events are of interest
+     * @param listener output event listener
+     */
+    void addOutputListener(DeviceId deviceId, RestconfDeviceOutputEventListener listener) {
+        deviceOutputListeners.computeIfAbsent(deviceId, id -> new CopyOnWriteArraySet<>()).add(listener);
+    }
+
+    /**
+     * Remove a listener for the output events of one device
+     *
+     * @param deviceId device whose events were of interest
+     * @param listener output event listener
+     */
+    void removeOutputListener(DeviceId deviceId, RestconfDeviceOutputEventListener listener) {
+        deviceOutputListeners.computeIfPresent(deviceId, (id, listeners) -> {
+            listeners.remove(listener);
+            return listeners.isEmpty() ? null : listeners;
+        });
+    }
+
+    /**
+     * Hand a device output event to the listeners for that device
+     *
+     * @param event device output event
+     */
+    private void dispatchDeviceOutput(RestconfDeviceOutputEvent event) {
+        Set<RestconfDeviceOutputEventListener> listeners =
+                deviceOutputListeners.get(event.getDeviceInfo().getDeviceId());
+
+        if (listeners == null) {
+            return;
+        }
+        for (RestconfDeviceOutputEventListener listener : listeners) {
+            try {
+                if (listener.isRelevant(event)) {
+                    listener.event(event);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Output listener for {} failed: {}", event.getDeviceInfo().getDeviceId(),
+                        e.toString());
+            }
+        }
+    }
+
+    /**
+     * Called by a device state machine after every state transition
+     *
+     * @param device    device that changed state
+     * @param prevState state before the transition
+     * @param newState  state after the transition
+     * @param cause     input or reason that caused the transition
+     */
+    void stateChanged(RestconfDevice device, int prevState, int newState, String cause) {
+        DeviceId id = device.getDeviceInfo().getDeviceId();
+        RestconfDeviceStateEvent event =
+                new RestconfDeviceStateEvent(id, prevState, newState, cause);
+
+        updateStateIndex(id);
+        stateEventQueue.publish(event);
     }
 
     /**
@@ -133,9 +793,17 @@ public class RestconfControllerImpl implements RestconfController {
      * @throws RestconfException when device is not available
      */
     public RestconfDevice connectDevice(DeviceId deviceId) throws RestconfException {
+        RestconfDevice device = getDevice(deviceId);
 
-        throw new RestconfException("TODO: Need to implement");
-        // TODO: put connectivity guts into the RestconfDevice interface/impl
+        if (device == null) {
+            throw new RestconfException("Unknown RESTCONF device: " + deviceId);
+        }
+        // Devices already past IDLE are either connected or have a retry pending
+
+        if (device.getState() == RestconfDeviceState.IDLE) {
+            device.start();
+        }
+        return device;
     }
 
     /**
@@ -144,10 +812,19 @@ public class RestconfControllerImpl implements RestconfController {
      * @param deviceId id of the device to remove
      * @param remove   true if device is to be removed from core
      */
+    @Override
     public void disconnectDevice(DeviceId deviceId, boolean remove) {
-        // TODO: Implement this
-    }
+        RestconfDevice device = getDevice(deviceId);
+
+        if (device != null) {
+            device.disconnect();
+            probeBatcher.invalidate(device.getDeviceInfo().getBaseURL() + "/");
 
+            if (remove) {
+                removeDevice(deviceId);
+            }
+        }
+    }
 
     /**
      * Removes a RESTCONF device from the core.
@@ -156,7 +833,65 @@ public class RestconfControllerImpl implements RestconfController {
      */
     @Override
     public void removeDevice(DeviceId deviceId) {
-        // TODO: Implement this
+        if (unregisterDevice(deviceId) != null) {
+            deviceEventQueue.publish(listener -> listener.deviceRemoved(deviceId));
+        }
+    }
+
+    @Override
+    public CompletableFuture<Map<DeviceId, Boolean>> connectDevices(Collection<RestconfDeviceInfo> devices) {
+        return new RestconfBulkOperation<>("connect", devices, RestconfDeviceInfo::getDeviceId,
+                this::addDevice, RestconfBulkOperation.DEFAULT_BATCH_SIZE,
+                RestconfBulkOperation.DEFAULT_PARALLELISM).start(getBlockingExecutor());
+    }
+
+    @Override
+    public CompletableFuture<Map<DeviceId, Boolean>> disconnectDevices(Collection<DeviceId> deviceIds,
+                                                                       boolean remove) {
+        return new RestconfBulkOperation<>("disconnect", deviceIds, Function.identity(),
+                id -> {
+                    boolean known = getDevice(id) != null;
+                    disconnectDevice(id, remove);
+                    return known;
+                },
+                RestconfBulkOperation.DEFAULT_BATCH_SIZE,
+                RestconfBulkOperation.DEFAULT_PARALLELISM).start(getBlockingExecutor());
+    }
+
+    @Override
+    public CompletableFuture<Map<DeviceId, Boolean>> removeDevices(Collection<DeviceId> deviceIds) {
+        return new RestconfBulkOperation<>("remove", deviceIds, Function.identity(),
+                id -> {
+                    boolean removed = unregisterDevice(id) != null;
+
+                    if (removed) {
+                        deviceEventQueue.publish(listener -> listener.deviceRemoved(id));
+                    }
+                    return removed;
+                },
+                RestconfBulkOperation.DEFAULT_BATCH_SIZE,
+                RestconfBulkOperation.DEFAULT_PARALLELISM).start(getBlockingExecutor());
+    }
+
+    /**
+     * Register a device and notify device listeners of it
+     *
+     * @param deviceInfo device information
+     *
+     * @return true once the device is registered
+     */
+    private boolean addDevice(RestconfDeviceInfo deviceInfo) {
+        DeviceId id = deviceInfo.getDeviceId();
+        RestconfDevice device = deviceFactory.createRestconfDevice(deviceInfo);
+
+        if (registerDevice(device) == device) {
+            deviceEventQueue.publish(listener -> listener.deviceAdded(id));
+        } else {
+            // If new information, listeners may need to kick the device back to DISCOVERY
+
+            deviceEventQueue.publish(listener -> listener.deviceModified(id, deviceInfo));
+        }
+        return true;
     }
 
     /**
@@ -190,6 +925,40 @@ public class RestconfControllerImpl implements RestconfController {
         return restconfDeviceMap;
     }
 
+    /**
+     * Key for the device address index
+     */
+    private static final class AddressKey {
+        private final IpAddress address;
+        private final int port;
+
+        private AddressKey(IpAddress address, int port) {
+            this.address = address;
+            this.port = port;
+        }
+
+        private static AddressKey of(RestconfDeviceInfo info) {
+            return new AddressKey(info.getIpAddress(), info.getPort());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(address, port);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof AddressKey) {
+                AddressKey other = (AddressKey) obj;
+                return port == other.port && address.equals(other.address);
+            }
+            return false;
+        }
+    }
+
     /**
      * Device factory for the specific RestconfDevice implementation
      */
@@ -203,7 +972,7 @@ public class RestconfControllerImpl implements RestconfController {
          */
         @Override
         public RestconfDevice createRestconfDevice(RestconfDeviceInfo deviceInfo) {
-            return new DefaultRestconfDevice(deviceInfo);
+            return new DefaultRestconfDevice(deviceInfo, RestconfControllerImpl.this);
         }
     }
 }
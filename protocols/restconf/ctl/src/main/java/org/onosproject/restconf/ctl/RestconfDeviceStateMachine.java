@@ -15,20 +15,32 @@
  */
 package org.onosproject.restconf.ctl;
 
-import com.mastfrog.acteur.headers.HeaderValueType;
-import com.mastfrog.netty.http.client.HttpClient;
-import com.mastfrog.netty.http.client.HttpRequestBuilder;
-import com.mastfrog.netty.http.client.ResponseFuture;
-import com.mastfrog.netty.http.client.ResponseHandler;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponseStatus;
-import org.joda.time.Duration;
+import io.netty.util.Timeout;
 import org.onosproject.net.DeviceId;
 import org.onosproject.restconf.RestconfDevice;
+import org.onosproject.restconf.RestconfDeviceIdentity;
 import org.onosproject.restconf.RestconfDeviceInfo;
+import org.onosproject.restconf.RestconfDeviceState;
 import org.onosproject.restconf.RestconfDeviceStateMachineException;
 import org.slf4j.Logger;
-import com.mastfrog.acteur.headers.Headers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.slf4j.LoggerFactory.getLogger;
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -37,18 +49,12 @@ import static com.google.common.base.MoreObjects.toStringHelper;
  * RESTCONF device state machine
  */
 public class RestconfDeviceStateMachine {
-    /**
-     * Idle (temporary) state of the device that occurs just after the device
-     * is created by CLI/NetConfig JSON or is being restored from persistent
-     * storage after a Control or RESTCONF protocol driver reset.
-     */
-    // TODO: Do we want to allow subscriptions to state machine change events?
-    static final int IDLE = 0;
-    static final int DISCOVERY = 1; // Attempting initial connection and meta-data lookup
-    static final int POPULATE = 2;  // Pulling down YANG libraries supported
-    static final int ACTIVE = 3;    // Active and ready for operations
-    static final int INACTIVE = 4;  // Inactive due to administrative interaction or temporary disconnection
-    static final int FAILED = 5;    // Inactive/error, cannot connect to device
+    static final int IDLE = RestconfDeviceState.IDLE;
+    static final int DISCOVERY = RestconfDeviceState.DISCOVERY;
+    static final int POPULATE = RestconfDeviceState.POPULATE;
+    static final int ACTIVE = RestconfDeviceState.ACTIVE;
+    static final int INACTIVE = RestconfDeviceState.INACTIVE;
+    static final int FAILED = RestconfDeviceState.FAILED;
 
     static final int CONNECT = 0;
     static final int DOWNLOAD = 1;
@@ -56,33 +62,68 @@ public class RestconfDeviceStateMachine {
     static final int ADMIN_DOWN = 3;
     static final int ADMIN_UP = 4;
     static final int ERROR = 5;
+    static final int RESUME = 6;
+    static final int DISCONNECT = 7;
 
     private final Logger log = getLogger(getClass());
 
-    static final String rootResource = ".well-known/host-meta";
+    static final String rootResource = "/.well-known/host-meta";
     static final String rootResourceFormat = "application/xrd+xml";
 
-    private int currentState = IDLE;
-    private int retries = 0;
+    // Discovery resources under the API root.  The yang library (RFC 7895) is
+    // mandatory for a RESTCONF server, the monitoring capabilities are optional.
+
+    static final String MODULE_SET_ID_RESOURCE = "/data/ietf-yang-library:modules-state/module-set-id";
+    static final String CAPABILITIES_RESOURCE =
+            "/data/ietf-restconf-monitoring:restconf-state/capabilities";
+
+    private static final Pattern XRD_LINK = Pattern.compile("<(?:\\w+:)?Link\\b([^>]*)>");
+    private static final Pattern XML_ATTRIBUTE =
+            Pattern.compile("([\\w:]+)\\s*=\\s*(?:'([^']*)'|\"([^\"]*)\")");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Reconnect backoff for FAILED/INACTIVE devices.  The delay doubles on each
+    // retry up to the maximum and a +/- jitter is applied so that a large number
+    // of devices that failed together do not all retry together.
+
+    static final long RETRY_INITIAL_DELAY_MS = 1000;             // One second
+    static final long RETRY_MAX_DELAY_MS = (5 * 60 * 1000);      // Five minutes
+    static final int RETRY_JITTER_PERCENT = 20;                  // +/- 20%
+
+    // State is updated lock-free with a CAS against the transition table so getState()
+    // is always cheap and concurrent inputs can never lose a transition.
+
+    private final AtomicInteger currentState = new AtomicInteger(IDLE);
+    private final AtomicInteger retries = new AtomicInteger();
     private String failureReason = "";
 
     private RestconfDevice device;
     private DeviceId deviceId;
-    private Duration connectTimeout;
+    private RestconfControllerImpl controller;
+    private Timeout retryTimeout;
+    private boolean stopped;                // Guarded by 'this'
+
+    // Each entry into DISCOVERY starts a new attempt, replies to an earlier attempt
+    // are ignored.  The partial results are only touched on the device's partition.
+
+    private final AtomicInteger discoveries = new AtomicInteger();
+    private volatile String discoveredApiRoot;
+    private volatile String discoveredModuleSetId;
 
     private State[] states = {
             new Idle(), new Discovery(), new Populate(),
             new Active(), new Inactive(), new Failed()
     };
-    private static String[] stateName = {
-            "IDLE", "DISCOVERY", "POPULATE", "ACTIVE", "INACTIVE", "FAILED"
+    private static String[] inputName = {
+            "CONNECT", "DOWNLOAD", "LOADED", "ADMIN_DOWN", "ADMIN_UP", "ERROR", "RESUME", "DISCONNECT"
     };
 
-    public RestconfDeviceStateMachine(RestconfDevice device) {
+    public RestconfDeviceStateMachine(RestconfDevice device, RestconfControllerImpl controller) {
         RestconfDeviceInfo info = device.getDeviceInfo();
 
         this.device = device;
-        connectTimeout = Duration.millis(info.getSocketTimeout());
+        this.controller = controller;
+        deviceId = info.getDeviceId();
     }
 
     /**
@@ -91,7 +132,7 @@ public class RestconfDeviceStateMachine {
      * @return Device State
      */
     public int getState() {
-        return currentState;
+        return currentState.get();
     }
 
     /**
@@ -100,7 +141,7 @@ public class RestconfDeviceStateMachine {
      * @return String name of state
      */
     public String getStateAsText() {
-        return stateName[currentState];
+        return RestconfDeviceState.toString(getState());
     }
 
     /**
@@ -116,7 +157,7 @@ public class RestconfDeviceStateMachine {
     public String toString() {
         return toStringHelper(this)
                 .add("state", getStateAsText())
-                .add("retries", retries)
+                .add("retries", retries.get())
                 .toString();
     }
 
@@ -136,16 +177,26 @@ public class RestconfDeviceStateMachine {
     // ADMIN_UP      -       |   _        |   _       |   _       |  ACTIVE   |   _
     //
     // ERROR         -       |   FAILED   |  FAILED   |  FAILED   |  FAILED   |   _
+    //
+    // RESUME      ACTIVE    |   _        |   _       |   _       |   _       |   _
+    //
+    // DISCONNECT    -       |   IDLE     |   IDLE    |   IDLE    |   IDLE    |   IDLE
     //-----------------------------------------------------------------------------------
     //
+    // RESUME is used on a warm restart when the device was ACTIVE in a saved snapshot
+    // and is still reachable, so DISCOVERY and POPULATE can be skipped.
+    //
+    // DISCONNECT drops the device's session, any discovery in progress and any pending
+    // reconnect attempt.  The device stays IDLE until it is started again.
+    //
     // TODO: May not end up supporting ADMIN_UP/DOWN capability to start with...
 
-    private static final int[] idleTransition = {DISCOVERY, IDLE, IDLE, IDLE, IDLE, IDLE};
-    private static final int[] discoveryTransition = {DISCOVERY, POPULATE, DISCOVERY, DISCOVERY, DISCOVERY, FAILED};
-    private static final int[] populateTransition = {DISCOVERY, POPULATE, ACTIVE, POPULATE, POPULATE, FAILED};
-    private static final int[] activeTransition = {DISCOVERY, ACTIVE, ACTIVE, INACTIVE, ACTIVE, FAILED};
-    private static final int[] inactiveTransition = {DISCOVERY, INACTIVE, INACTIVE, INACTIVE, ACTIVE, FAILED};
-    private static final int[] failedTransition = {DISCOVERY, FAILED, FAILED, FAILED, FAILED, FAILED};
+    private static final int[] idleTransition = {DISCOVERY, IDLE, IDLE, IDLE, IDLE, IDLE, ACTIVE, IDLE};
+    private static final int[] discoveryTransition = {DISCOVERY, POPULATE, DISCOVERY, DISCOVERY, DISCOVERY, FAILED, DISCOVERY, IDLE};
+    private static final int[] populateTransition = {DISCOVERY, POPULATE, ACTIVE, POPULATE, POPULATE, FAILED, POPULATE, IDLE};
+    private static final int[] activeTransition = {DISCOVERY, ACTIVE, ACTIVE, INACTIVE, ACTIVE, FAILED, ACTIVE, IDLE};
+    private static final int[] inactiveTransition = {DISCOVERY, INACTIVE, INACTIVE, INACTIVE, ACTIVE, FAILED, INACTIVE, IDLE};
+    private static final int[] failedTransition = {DISCOVERY, FAILED, FAILED, FAILED, FAILED, FAILED, FAILED, IDLE};
 
     // Transistion table
 
@@ -186,51 +237,65 @@ public class RestconfDeviceStateMachine {
             log.warn("ERROR transition from this state is not allowed.");
         }
 
+        public void resume() throws RestconfDeviceStateMachineException {
+            log.warn("RESUME transition from this state is not allowed.");
+        }
+
+        public void disconnect() throws RestconfDeviceStateMachineException {
+            log.debug("DISCONNECT: dropping session");
+        }
+
         public void receiveMessage(HttpResponseStatus status, HttpHeaders headers, String response) {
             log.info("Message reception in this state is ignored");
         }
+
+        /**
+         * Entry action, run once the state has been entered and listeners notified
+         */
+        public void enter() {
+        }
     }
 
     class Idle extends State {
         private final Logger log = getLogger(getClass());
         private String name = "IDLE_STATE";
-        private HttpClient client = null;
 
         /**
-         * A device in the IDLE state has received a connect message.  It should initiate
-         * discovery of the meta-data to locate where the RESTCONF API root is located.
+         * A device in the IDLE state has received a connect message.  Entering DISCOVERY
+         * initiates discovery of the meta-data to locate where the RESTCONF API root is
+         * located.
          */
         @Override
         public void connect() {
-            log.info("connect: entry");
-
-            // Create async HTTP Client and attempt to discover the Root Resource.
-
-            // TODO: Support SSL
-            // TODO: Support more than basic credentials
-
-            client = HttpClient.builder()
-                    .followRedirects()
-                    .setTimeout(connectTimeout)
-                    .build();
-
-            String url = device.getDeviceInfo().getBaseURL() + rootResource;
+            log.debug("connect: entry");
+        }
 
-            HttpRequestBuilder builder = client.get()
-                    .setURL(url);
+        /**
+         * Nothing to drop, the device was never connected or was already disconnected
+         */
+        @Override
+        public void disconnect() {
+            log.debug("disconnect: already idle");
+        }
 
-            ResponseFuture future = builder.execute(new ResponseHandler<String>(String.class) {
-                protected void receive(HttpResponseStatus status, HttpHeaders headers,
-                                       String response) {
-                    receiveMessage(status, headers, response);
-                }
-            });
-            //public static final HeaderValueType<String> ACCEPT = new StringHeader("Accept".toString());
+        /**
+         * Back to IDLE after a disconnect.  Replies to any discovery in flight are
+         * ignored and no reconnect is attempted.
+         */
+        @Override
+        public void enter() {
+            discoveries.incrementAndGet();
+            failureReason = "";
         }
 
+        /**
+         * A device in the IDLE state was ACTIVE in a saved snapshot and passed a
+         * liveness check.  The cached discovery results are still valid so go straight
+         * to ACTIVE.
+         */
         @Override
-        public void receiveMessage(HttpResponseStatus status, HttpHeaders headers, String response) {
-            log.info("TODO: Implement this");
+        public void resume() {
+            log.info("resume: entry");
         }
     }
 
@@ -238,17 +303,28 @@ public class RestconfDeviceStateMachine {
         private final Logger log = getLogger(getClass());
         private String name = "DISCOVERY_STATE";
 
+        /**
+         * Locate the RESTCONF API root from the device's host-meta (RFC 6415) and then
+         * read the mandatory 'ietf-yang-library' module-set-id
+         */
+        @Override
+        public void enter() {
+            discover();
+        }
+
         /**
          * The device is in the DISCOVERY state and knows where the RESTCONF API root
-         * is located.  It now needs to examine the mandatory 'ietf-yang-library' to
-         * discover the Library version.
+         * is located and the version of its yang library.
          */
+        @Override
         public void download() {
-            log.warn("TODO: Implement this");
+            log.debug("{}: API root {}, module-set-id {}", deviceId, discoveredApiRoot,
+                    discoveredModuleSetId);
         }
 
+        @Override
         public void error(String reason) {
-            log.warn("TODO: Implement this");
+            log.info("{}: Discovery failed: {}", deviceId, reason);
         }
     }
 
@@ -256,19 +332,28 @@ public class RestconfDeviceStateMachine {
         private final Logger log = getLogger(getClass());
         private String name = "POPULATE_STATE";
 
+        /**
+         * Read what the device supports beyond the yang library and the identity it
+         * reports about itself
+         */
+        @Override
+        public void enter() {
+            populate();
+        }
+
         /**
          * The schema (YANG modules) were located and downloaded or were not
-         * provided since this is optional.  Parse any libraries found for location of
-         * drivers that we may need to load and then to active.
-         *
-         * @throws RestconfDeviceStateMachineException
+         * provided since this is optional.  The discovery results have been recorded
+         * on the device, so snapshots carry them, and the device can go active.
          */
-        public void loaded() throws RestconfDeviceStateMachineException {
-            log.warn("LIBRARY LOADED transition from this state is not allowed.");
+        @Override
+        public void loaded() {
+            log.debug("{}: Discovery complete", deviceId);
         }
 
+        @Override
         public void error(String reason) {
-            log.warn("TODO: Implement this");
+            log.info("{}: Populate failed: {}", deviceId, reason);
         }
     }
 
@@ -278,7 +363,7 @@ public class RestconfDeviceStateMachine {
 
         @Override
         public void connect() {
-            log.warn("TODO: Implement this");
+            log.debug("connect: rediscovering");
         }
 
         public void adminStatusDown() {
@@ -296,7 +381,7 @@ public class RestconfDeviceStateMachine {
 
         @Override
         public void connect() {
-            log.warn("TODO: Implement this");
+            log.debug("connect: rediscovering");
         }
 
         public void adminStatusUp() {
@@ -314,7 +399,7 @@ public class RestconfDeviceStateMachine {
 
         @Override
         public void connect() {
-            log.warn("TODO: Implement this");
+            log.debug("connect: rediscovering");
         }
     }
 
@@ -324,14 +409,384 @@ public class RestconfDeviceStateMachine {
      * @param message Transition message
      */
     private void nextState(int message) {
-        int prevState = currentState;
-        currentState = transitionTable[currentState][message];
-        log.info("[]: State change {} -> {}", deviceId.toString(),
-                stateName[prevState], stateName[currentState]);
+        int prevState;
+        int newState;
+
+        do {
+            prevState = currentState.get();
+            newState = transitionTable[prevState][message];
+        } while (!currentState.compareAndSet(prevState, newState));
+
+        log.info("{}: State change {} -> {}", deviceId.toString(),
+                RestconfDeviceState.toString(prevState), RestconfDeviceState.toString(newState));
+
+        if (prevState != newState) {
+            switch (newState) {
+                case IDLE:
+                case DISCOVERY:
+                    cancelRetry();
+                    break;
+
+                case ACTIVE:
+                    cancelRetry();
+                    retries.set(0);
+                    break;
+
+                case INACTIVE:
+                    // Only reconnect on a temporary disconnect, not when an operator
+                    // has placed the device administratively down.
+
+                    if (device.getDeviceInfo().getAdminStateUp()) {
+                        scheduleRetry();
+                    }
+                    break;
+
+                case FAILED:
+                    scheduleRetry();
+                    break;
+
+                default:
+                    break;
+            }
+            if (controller != null) {
+                String cause = (newState == FAILED && !failureReason.isEmpty()) ?
+                        inputName[message] + ": " + failureReason : inputName[message];
+
+                controller.stateChanged(device, prevState, newState, cause);
+            }
+            states[newState].enter();
+        }
+    }
+
+    /**
+     * Start a discovery attempt.  Requests go through the controller's shared client
+     * and their results are delivered on the device's partition.
+     */
+    private void discover() {
+        int attempt = discoveries.incrementAndGet();
+        RestconfDeviceInfo info = device.getDeviceInfo();
+
+        discoveredApiRoot = null;
+        discoveredModuleSetId = null;
+
+        if (controller == null) {
+            return;
+        }
+        if (!RestconfProbeBatcher.isSupported(info)) {
+            controller.execute(deviceId, () -> fail(attempt, DISCOVERY, "TLS is not supported"));
+            return;
+        }
+        controller.getUrl(info, info.getBaseURL() + rootResource, rootResourceFormat)
+                .thenAccept(reply -> hostMetaReceived(attempt, info, reply));
+    }
+
+    private void hostMetaReceived(int attempt, RestconfDeviceInfo info, String reply) {
+        if (!isCurrent(attempt, DISCOVERY)) {
+            return;
+        }
+        String apiRoot = parseApiRoot(reply);
+
+        if (apiRoot == null) {
+            // host-meta is optional in practice, fall back to the configured root
+
+            log.debug("{}: No RESTCONF link in host-meta, using {}", deviceId, info.getApiRoot());
+            apiRoot = info.getApiRoot();
+        }
+        discoveredApiRoot = apiRoot;
+
+        controller.getUrl(info, info.getBaseURL() + apiRoot + MODULE_SET_ID_RESOURCE,
+                RestconfProbeBatcher.PROBE_MEDIA_TYPE)
+                .thenAccept(library -> libraryReceived(attempt, library));
+    }
+
+    private void libraryReceived(int attempt, String reply) {
+        if (!isCurrent(attempt, DISCOVERY)) {
+            return;
+        }
+        String moduleSetId = parseModuleSetId(reply);
+
+        if (moduleSetId == null) {
+            fail(attempt, DISCOVERY, "ietf-yang-library module-set-id could not be read");
+            return;
+        }
+        discoveredModuleSetId = moduleSetId;
+
+        try {
+            download();
+        } catch (RestconfDeviceStateMachineException ex) {
+            log.warn("{}: Download failed: {}", deviceId, ex.toString());
+        }
+    }
+
+    /**
+     * Read the optional RESTCONF capabilities and the device's identity, in parallel,
+     * and record the discovery results.  The identity is cached on the device so that
+     * the device is described to the core once, when it goes ACTIVE.
+     */
+    private void populate() {
+        int attempt = discoveries.get();
+        RestconfDeviceInfo info = device.getDeviceInfo();
+
+        if (controller == null) {
+            return;
+        }
+        String root = info.getBaseURL() + discoveredApiRoot;
+        String mediaType = RestconfProbeBatcher.PROBE_MEDIA_TYPE;
+
+        CompletableFuture<RestconfDeviceIdentity> identity =
+                controller.getUrl(info, root + RestconfDeviceIdentity.HARDWARE, mediaType)
+                        .thenCombine(controller.getUrl(info, root + RestconfDeviceIdentity.PLATFORM, mediaType),
+                                RestconfDeviceIdentity::parse);
+
+        controller.getUrl(info, root + CAPABILITIES_RESOURCE, mediaType)
+                .thenCombine(identity, (capabilities, reported) -> {
+                    populated(attempt, capabilities, reported);
+                    return null;
+                });
+    }
+
+    private void populated(int attempt, String capabilities, RestconfDeviceIdentity identity) {
+        if (!isCurrent(attempt, POPULATE)) {
+            return;
+        }
+        log.debug("{}: Identity {}", deviceId, identity);
+
+        if (device instanceof DefaultRestconfDevice) {
+            ((DefaultRestconfDevice) device).setDiscoveryResults(discoveredApiRoot,
+                    discoveredModuleSetId, RestconfProbeBatcher.PROBE_MEDIA_TYPE,
+                    parseCapabilities(capabilities), identity);
+        }
+        try {
+            loaded();
+        } catch (RestconfDeviceStateMachineException ex) {
+            log.warn("{}: Load failed: {}", deviceId, ex.toString());
+        }
+    }
+
+    /**
+     * Is a discovery reply for the attempt in progress
+     *
+     * @param attempt discovery attempt the reply belongs to
+     * @param state   state the attempt expects the device to be in
+     *
+     * @return false if the device has moved on since the request was made
+     */
+    private boolean isCurrent(int attempt, int state) {
+        return attempt == discoveries.get() && getState() == state;
+    }
+
+    private void fail(int attempt, int state, String reason) {
+        if (!isCurrent(attempt, state)) {
+            return;
+        }
+        failureReason = reason;
+
+        try {
+            error();
+        } catch (RestconfDeviceStateMachineException ex) {
+            log.warn("{}: Error transition failed: {}", deviceId, ex.toString());
+        }
+    }
+
+    /**
+     * Find the RESTCONF API root in a host-meta XRD document (RFC 8040 section 3.1)
+     *
+     * @param xrd host-meta document, may be null
+     *
+     * @return API root path without a trailing '/', or null if not found
+     */
+    static String parseApiRoot(String xrd) {
+        if (xrd == null) {
+            return null;
+        }
+        Matcher link = XRD_LINK.matcher(xrd);
+
+        while (link.find()) {
+            Matcher attribute = XML_ATTRIBUTE.matcher(link.group(1));
+            String rel = null;
+            String href = null;
+
+            while (attribute.find()) {
+                String value = attribute.group(2) != null ? attribute.group(2) : attribute.group(3);
+
+                if ("rel".equals(attribute.group(1))) {
+                    rel = value;
+                } else if ("href".equals(attribute.group(1))) {
+                    href = value;
+                }
+            }
+            if (!"restconf".equals(rel) || Strings.isNullOrEmpty(href)) {
+                continue;
+            }
+            try {
+                String path = Strings.nullToEmpty(URI.create(href.trim()).getPath());
+
+                while (path.endsWith("/")) {
+                    path = path.substring(0, path.length() - 1);
+                }
+                return path.isEmpty() ? null : (path.startsWith("/") ? path : "/" + path);
+
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the module-set-id from an ietf-yang-library reply
+     *
+     * @param reply JSON reply, may be null
+     *
+     * @return module-set-id, or null if not present
+     */
+    static String parseModuleSetId(String reply) {
+        JsonNode moduleSetId = findField(readTree(reply), "module-set-id");
+
+        return (moduleSetId != null && moduleSetId.isValueNode() && !moduleSetId.asText().isEmpty()) ?
+                moduleSetId.asText() : null;
+    }
+
+    /**
+     * Get the capability URIs from an ietf-restconf-monitoring reply
+     *
+     * @param reply JSON reply, may be null
+     *
+     * @return capability URIs, empty if not present
+     */
+    static Set<String> parseCapabilities(String reply) {
+        JsonNode capabilities = findField(readTree(reply), "capability");
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+
+        if (capabilities != null) {
+            capabilities.forEach(capability -> {
+                if (capability.isTextual()) {
+                    builder.add(capability.asText());
+                }
+            });
+        }
+        return builder.build();
+    }
+
+    private static JsonNode readTree(String reply) {
+        try {
+            return reply == null ? null : MAPPER.readTree(reply);
+
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Depth first search for a field by name, with or without a module prefix
+     */
+    private static JsonNode findField(JsonNode node, String name) {
+        if (node == null || !node.isContainerNode()) {
+            return null;
+        }
+        if (node.isArray()) {
+            for (JsonNode element : node) {
+                JsonNode found = findField(element, name);
+
+                if (found != null) {
+                    return found;
+                }
+            }
+            return null;
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String key = field.getKey();
+
+            if (key.equals(name) || key.endsWith(":" + name)) {
+                return field.getValue();
+            }
+            JsonNode found = findField(field.getValue(), name);
+
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the delay before the next reconnect attempt
+     *
+     * @return delay in milliseconds with exponential backoff and jitter applied
+     */
+    long getRetryDelay() {
+        return getRetryDelay(retries.get());
+    }
+
+    /**
+     * Get the delay before a reconnect attempt
+     *
+     * @param retries number of reconnect attempts already made
+     *
+     * @return delay in milliseconds with exponential backoff and jitter applied
+     */
+    static long getRetryDelay(int retries) {
+        long delay = RETRY_INITIAL_DELAY_MS << Math.min(retries, 30);
+        delay = Math.min(delay, RETRY_MAX_DELAY_MS);
+
+        long jitter = (delay * RETRY_JITTER_PERCENT) / 100;
+
+        return delay + ThreadLocalRandom.current().nextLong(-jitter, jitter + 1);
+    }
+
+    /**
+     * Schedule a reconnect attempt on the controller's shared timer
+     */
+    private synchronized void scheduleRetry() {
+        if (controller == null || stopped) {
+            return;
+        }
+        cancelRetry();
+
+        long delay = getRetryDelay();
+        int attempt = retries.incrementAndGet();
+
+        log.debug("{}: Reconnect attempt {} in {} mS", deviceId, attempt, delay);
+        retryTimeout = controller.schedule(deviceId, this::retry, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reconnect attempt, unless the device was removed since it was scheduled
+     */
+    private void retry() {
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+            retryTimeout = null;
+        }
+        device.start();
+    }
+
+    /**
+     * Stop scheduling reconnect attempts and cancel any that is pending.  Used once
+     * the device has been removed.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        cancelRetry();
+    }
+
+    /**
+     * Cancel any pending reconnect attempt
+     */
+    private synchronized void cancelRetry() {
+        if (retryTimeout != null) {
+            retryTimeout.cancel();
+            retryTimeout = null;
+        }
     }
 
     public void connect() throws RestconfDeviceStateMachineException {
-        states[currentState].connect();
+        states[getState()].connect();
 
         // Move to the next state
 
@@ -341,7 +796,7 @@ public class RestconfDeviceStateMachine {
     }
 
     public void download() throws RestconfDeviceStateMachineException {
-        states[currentState].connect();
+        states[getState()].download();
 
         // Move to the next state
 
@@ -351,7 +806,7 @@ public class RestconfDeviceStateMachine {
     }
 
     public void loaded() throws RestconfDeviceStateMachineException {
-        states[currentState].connect();
+        states[getState()].loaded();
 
         // Move to the next state
 
@@ -361,7 +816,7 @@ public class RestconfDeviceStateMachine {
     }
 
     public void adminStatusDown() throws RestconfDeviceStateMachineException {
-        states[currentState].connect();
+        states[getState()].adminStatusDown();
 
         // Move to the next state
 
@@ -371,7 +826,7 @@ public class RestconfDeviceStateMachine {
     }
 
     public void adminStatusUp() throws RestconfDeviceStateMachineException {
-        states[currentState].connect();
+        states[getState()].adminStatusUp();
 
         // Move to the next state
 
@@ -380,8 +835,24 @@ public class RestconfDeviceStateMachine {
         // TODO: Do message specific actions
     }
 
+    public void resume() throws RestconfDeviceStateMachineException {
+        states[getState()].resume();
+
+        // Move to the next state
+
+        nextState(RESUME);
+    }
+
+    public void disconnect() throws RestconfDeviceStateMachineException {
+        states[getState()].disconnect();
+
+        // Move to the next state
+
+        nextState(DISCONNECT);
+    }
+
     public void error() throws RestconfDeviceStateMachineException {
-        states[currentState].connect();
+        states[getState()].error(failureReason);
 
         // Move to the next state
 
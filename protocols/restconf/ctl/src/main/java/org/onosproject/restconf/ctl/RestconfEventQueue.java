@@ -0,0 +1,216 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.ctl;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.onlab.util.Tools.groupedThreads;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Bounded, lossless event queue that decouples event producers from event consumers.
+ * <p>
+ * Unlike {@link RestconfEventRing} no event is ever dropped.  Each consumer has its own
+ * thread and a queue of at most {@code capacity} events; a producer publishing to a
+ * consumer whose queue is full waits for it to make room.  This is for events that
+ * listeners can not recover from missing, such as devices being added or removed and
+ * state machine transitions.
+ * <p>
+ * A consumer that publishes to the queue it is draining is never made to wait, as it
+ * would be waiting on itself.  Its events are queued beyond the bound instead.
+ *
+ * @param <E> event type
+ */
+public class RestconfEventQueue<E> {
+    private final Logger log = getLogger(getClass());
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private final String name;
+    private final int capacity;
+    private final Map<Object, QueueConsumer> consumers = new ConcurrentHashMap<>();
+    private final ThreadLocal<Boolean> dispatching = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * A queued event, and whether its producer took a unit of queue space for it
+     */
+    private static final class Entry<E> {
+        private final E event;
+        private final boolean bounded;
+
+        private Entry(E event, boolean bounded) {
+            this.event = event;
+            this.bounded = bounded;
+        }
+    }
+
+    /**
+     * Create an event queue
+     *
+     * @param name     name used for consumer threads
+     * @param capacity maximum number of events queued per consumer
+     */
+    public RestconfEventQueue(String name, int capacity) {
+        Preconditions.checkArgument(capacity > 0, "Queue capacity must be positive");
+
+        this.name = name;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Publish an event to all consumers.  Waits while any consumer's queue is full.
+     *
+     * @param event event to publish
+     */
+    public void publish(E event) {
+        boolean reentrant = dispatching.get();
+
+        consumers.values().forEach(consumer -> consumer.offer(event, reentrant));
+    }
+
+    /**
+     * Add a consumer.  It receives events published after it was added.
+     *
+     * @param key     key identifying the consumer (typically the listener)
+     * @param handler event handler, run on the consumer's own thread
+     */
+    public void addConsumer(Object key, Consumer<E> handler) {
+        consumers.computeIfAbsent(key, k -> {
+            QueueConsumer consumer = new QueueConsumer(k, handler);
+            consumer.start();
+            return consumer;
+        });
+    }
+
+    /**
+     * Remove a consumer and stop its thread.  Events still queued for it are discarded.
+     *
+     * @param key key identifying the consumer
+     */
+    public void removeConsumer(Object key) {
+        QueueConsumer consumer = consumers.remove(key);
+
+        if (consumer != null) {
+            consumer.stop();
+        }
+    }
+
+    /**
+     * Number of published events a consumer has not yet processed
+     *
+     * @param key key identifying the consumer
+     *
+     * @return consumer lag, or -1 if the consumer is not known
+     */
+    public long getLag(Object key) {
+        QueueConsumer consumer = consumers.get(key);
+
+        return consumer == null ? -1 : consumer.events.size();
+    }
+
+    /**
+     * Number of times a producer had to wait for a consumer to make room
+     *
+     * @param key key identifying the consumer
+     *
+     * @return number of waits, or -1 if the consumer is not known
+     */
+    public long getStalls(Object key) {
+        QueueConsumer consumer = consumers.get(key);
+
+        return consumer == null ? -1 : consumer.stalls.get();
+    }
+
+    /**
+     * Remove all consumers and stop their threads
+     */
+    public void shutdown() {
+        consumers.keySet().forEach(this::removeConsumer);
+    }
+
+    /**
+     * A consumer with its own thread and bounded queue
+     */
+    private final class QueueConsumer implements Runnable {
+        private final Object key;
+        private final Consumer<E> handler;
+        private final BlockingQueue<Entry<E>> events = new LinkedBlockingQueue<>();
+        private final Semaphore space = new Semaphore(capacity);
+        private final AtomicLong stalls = new AtomicLong();
+        private volatile boolean running = true;
+        private volatile Thread thread;
+
+        private QueueConsumer(Object key, Consumer<E> handler) {
+            this.key = key;
+            this.handler = handler;
+        }
+
+        private void start() {
+            ThreadFactory factory = groupedThreads("onos/restconf", name + "-%d", log);
+            thread = factory.newThread(this);
+            thread.start();
+        }
+
+        private void stop() {
+            running = false;
+            space.release(capacity);        // Let any waiting producer through
+            thread.interrupt();
+        }
+
+        private void offer(E event, boolean reentrant) {
+            if (!reentrant && !space.tryAcquire()) {
+                stalls.incrementAndGet();
+                log.debug("Listener {} is {} events behind, waiting", key, capacity);
+                space.acquireUninterruptibly();
+            }
+            if (running) {
+                events.add(new Entry<>(event, !reentrant));
+            }
+        }
+
+        @Override
+        public void run() {
+            dispatching.set(true);
+
+            while (running) {
+                Entry<E> entry;
+                try {
+                    entry = events.take();
+                } catch (InterruptedException e) {
+                    continue;       // Stopping
+                }
+                if (entry.bounded) {
+                    space.release();
+                }
+                try {
+                    handler.accept(entry.event);
+                } catch (RuntimeException e) {
+                    log.warn("Listener {} failed: {}", key, e.toString());
+                }
+            }
+        }
+    }
+}
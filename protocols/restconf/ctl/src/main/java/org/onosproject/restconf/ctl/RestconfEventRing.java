@@ -0,0 +1,256 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.ctl;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static org.onlab.util.Tools.groupedThreads;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Pre-allocated ring buffer that decouples event producers (state machines, sessions,
+ * streams) from event consumers (application listeners).
+ * <p>
+ * Producers publish into a fixed array of reusable slots and return immediately.
+ * Each consumer has its own thread and read sequence and drains all available
+ * events in a batch.  Producers never wait on consumers: a consumer that falls more
+ * than a full ring behind skips the overwritten events and the number skipped is
+ * recorded, so a slow listener can not stall device I/O threads.
+ * <p>
+ * The ring is only suitable for events a consumer can afford to miss, such as device
+ * output that later polling reconciles.  Events that must be delivered go through a
+ * {@link RestconfEventQueue} instead.
+ *
+ * @param <E> event type
+ */
+public class RestconfEventRing<E> {
+    private final Logger log = getLogger(getClass());
+
+    // Several notifications per device for tens of thousands of devices
+
+    public static final int DEFAULT_CAPACITY = 65536;
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final String name;
+    private final Slot<E>[] slots;
+    private final int mask;
+    private final Map<Object, RingConsumer> consumers = new ConcurrentHashMap<>();
+
+    private long nextSequence = 0;          // Guarded by 'this'
+    private volatile long cursor = -1;      // Last published sequence
+
+    /**
+     * A reusable ring slot.  The sequence is cleared while the event is replaced so
+     * a consumer can tell if the slot was overwritten while it was reading it.
+     */
+    private static final class Slot<E> {
+        volatile long sequence = -1;
+        E event;
+    }
+
+    /**
+     * Create an event ring
+     *
+     * @param name     name used for consumer threads
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    public RestconfEventRing(String name, int capacity) {
+        Preconditions.checkArgument(capacity > 0, "Ring capacity must be positive");
+
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(size, 2);
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Slot<E>[] ring = new Slot[size];
+
+        for (int index = 0; index < size; index++) {
+            ring[index] = new Slot<>();
+        }
+        this.name = name;
+        this.slots = ring;
+        this.mask = size - 1;
+    }
+
+    /**
+     * Publish an event to all consumers.  Never blocks on consumers.
+     *
+     * @param event event to publish
+     */
+    public void publish(E event) {
+        long sequence;
+
+        synchronized (this) {
+            sequence = nextSequence++;
+            Slot<E> slot = slots[(int) (sequence & mask)];
+
+            slot.sequence = -1;
+            slot.event = event;
+            slot.sequence = sequence;
+            cursor = sequence;
+        }
+        consumers.values().forEach(RingConsumer::wakeup);
+    }
+
+    /**
+     * Add a consumer.  It receives events published after it was added.
+     *
+     * @param key     key identifying the consumer (typically the listener)
+     * @param handler event handler, run on the consumer's own thread
+     */
+    public void addConsumer(Object key, Consumer<E> handler) {
+        consumers.computeIfAbsent(key, k -> {
+            RingConsumer consumer = new RingConsumer(k, handler);
+            consumer.start();
+            return consumer;
+        });
+    }
+
+    /**
+     * Remove a consumer and stop its thread
+     *
+     * @param key key identifying the consumer
+     */
+    public void removeConsumer(Object key) {
+        RingConsumer consumer = consumers.remove(key);
+
+        if (consumer != null) {
+            consumer.stop();
+        }
+    }
+
+    /**
+     * Number of published events a consumer has not yet processed
+     *
+     * @param key key identifying the consumer
+     *
+     * @return consumer lag, or -1 if the consumer is not known
+     */
+    public long getLag(Object key) {
+        RingConsumer consumer = consumers.get(key);
+
+        return consumer == null ? -1 : cursor - consumer.sequence.get();
+    }
+
+    /**
+     * Number of events a consumer missed because it fell a full ring behind
+     *
+     * @param key key identifying the consumer
+     *
+     * @return number of events skipped, or -1 if the consumer is not known
+     */
+    public long getOverruns(Object key) {
+        RingConsumer consumer = consumers.get(key);
+
+        return consumer == null ? -1 : consumer.overruns.get();
+    }
+
+    /**
+     * Remove all consumers and stop their threads
+     */
+    public void shutdown() {
+        consumers.keySet().forEach(this::removeConsumer);
+    }
+
+    /**
+     * A consumer with its own thread and read sequence
+     */
+    private final class RingConsumer implements Runnable {
+        private final Object key;
+        private final Consumer<E> handler;
+        private final AtomicLong sequence;                  // Last processed sequence
+        private final AtomicLong overruns = new AtomicLong();
+        private volatile boolean running = true;
+        private volatile boolean waiting;
+        private volatile Thread thread;
+
+        private RingConsumer(Object key, Consumer<E> handler) {
+            this.key = key;
+            this.handler = handler;
+            this.sequence = new AtomicLong(cursor);
+        }
+
+        private void start() {
+            ThreadFactory factory = groupedThreads("onos/restconf", name + "-%d", log);
+            thread = factory.newThread(this);
+            thread.start();
+        }
+
+        private void stop() {
+            running = false;
+            LockSupport.unpark(thread);
+        }
+
+        private void wakeup() {
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                long available = cursor;
+                long next = sequence.get() + 1;
+
+                if (next > available) {
+                    waiting = true;
+
+                    if (cursor < next) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    waiting = false;
+                    continue;
+                }
+                // Batch drain everything published so far
+
+                for (; next <= available && running; next++) {
+                    if (available - next >= slots.length) {
+                        long skipped = available - next - slots.length + 1;
+                        overruns.addAndGet(skipped);
+                        log.warn("Listener {} fell behind, {} events dropped", key, skipped);
+                        next += skipped;
+                    }
+                    Slot<E> slot = slots[(int) (next & mask)];
+                    long before = slot.sequence;
+                    E event = slot.event;
+
+                    if (before != next || slot.sequence != next) {
+                        // Overwritten while we were reading it
+
+                        overruns.incrementAndGet();
+                    } else {
+                        try {
+                            handler.accept(event);
+                        } catch (RuntimeException e) {
+                            log.warn("Listener {} failed: {}", key, e.toString());
+                        }
+                    }
+                    sequence.lazySet(next);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.ctl;
+
+import com.google.common.base.Preconditions;
+import org.onosproject.net.DeviceId;
+import org.slf4j.Logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.onlab.util.Tools.groupedThreads;
+
+/**
+ * Executor made up of a fixed number of single-threaded partitions.
+ * <p>
+ * All tasks for a given device always run on the same partition, chosen by hashing
+ * the device ID, so events for a device are processed in the order they were
+ * submitted without any per-device locking.  Tasks for different devices on
+ * different partitions run in parallel.
+ */
+public class RestconfPartitionedExecutor {
+
+    private final ExecutorService[] partitions;
+
+    /**
+     * Create a partitioned executor
+     *
+     * @param numPartitions number of partitions (threads)
+     * @param groupName     thread group name
+     * @param prefix        thread name prefix, the partition number is appended
+     * @param log           logger for uncaught exceptions
+     */
+    public RestconfPartitionedExecutor(int numPartitions, String groupName, String prefix,
+                                       Logger log) {
+        Preconditions.checkArgument(numPartitions > 0, "Number of partitions must be positive");
+
+        partitions = new ExecutorService[numPartitions];
+
+        for (int index = 0; index < numPartitions; index++) {
+            partitions[index] = Executors.newSingleThreadExecutor(
+                    groupedThreads(groupName, prefix + index, log));
+        }
+    }
+
+    /**
+     * Get the number of partitions
+     *
+     * @return number of partitions
+     */
+    public int size() {
+        return partitions.length;
+    }
+
+    /**
+     * Get the partition that services a device
+     *
+     * @param deviceId device ID
+     *
+     * @return partition index
+     */
+    public int partitionOf(DeviceId deviceId) {
+        return Math.floorMod(deviceId.hashCode(), partitions.length);
+    }
+
+    /**
+     * Run a task on the partition for a device
+     *
+     * @param deviceId device the task is for
+     * @param task     task to run
+     */
+    public void execute(DeviceId deviceId, Runnable task) {
+        partitions[partitionOf(deviceId)].execute(task);
+    }
+
+    /**
+     * Run a copy of a task on every partition.  Used to place a barrier at the head
+     * of each partition's queue.
+     *
+     * @param task task to run
+     */
+    public void executeOnAll(Runnable task) {
+        for (ExecutorService partition : partitions) {
+            partition.execute(task);
+        }
+    }
+
+    /**
+     * Wait for all partitions to finish their queued tasks after a shutdown
+     *
+     * @param timeout maximum time to wait
+     * @param unit    time unit of the timeout
+     *
+     * @return true if all partitions terminated, false if the timeout elapsed first
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        for (ExecutorService partition : partitions) {
+            long remaining = deadline - System.nanoTime();
+
+            if (!partition.awaitTermination(Math.max(remaining, 0), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stop accepting new tasks.  Previously submitted tasks are still run.
+     */
+    public void shutdown() {
+        for (ExecutorService partition : partitions) {
+            partition.shutdown();
+        }
+    }
+
+    /**
+     * Stop all partitions, abandoning any queued tasks
+     */
+    public void shutdownNow() {
+        for (ExecutorService partition : partitions) {
+            partition.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,533 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.ctl;
+
+import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
+import com.google.common.net.MediaType;
+import com.mastfrog.acteur.headers.Headers;
+import com.mastfrog.acteur.headers.Method;
+import com.mastfrog.netty.http.client.HttpClient;
+import com.mastfrog.netty.http.client.HttpRequestBuilder;
+import com.mastfrog.netty.http.client.ResponseFuture;
+import com.mastfrog.netty.http.client.ResponseHandler;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import org.onosproject.net.DeviceId;
+import org.onosproject.restconf.RestconfDeviceInfo;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Batches lightweight RESTCONF requests used for probing and polling devices.
+ * <p>
+ * Requests arriving within a short window are coalesced per resource and then
+ * issued as asynchronous HTTP GETs on a shared client, with a cap on the number in
+ * flight. A burst of probe requests from the core (after a cluster event, for
+ * example) therefore costs one request per device and never ties up a thread per
+ * probe.
+ * <p>
+ * Each successful request yields a fingerprint of the resource, the entity tag if
+ * the device supplied one or a hash of the content otherwise, so callers can tell if
+ * it changed. Entity tags are sent back as If-None-Match so unchanged resources can
+ * be answered without a body.
+ * <p>
+ * Edits are never coalesced or delayed, callers are expected to have merged them
+ * already, but they share the client and the cap on requests in flight.
+ * <p>
+ * Only transport failures and timeouts count as a failed request.  A device that
+ * answers with an error status is reachable, it just refused that request.  Results
+ * are handed to the caller through a per-device dispatcher rather than on the HTTP
+ * client's I/O thread.
+ * <p>
+ * The shared client is plain HTTP only, as is the rest of the controller.  Requests
+ * for devices configured for TLS are failed without being sent rather than being
+ * issued in the clear or against an unverified certificate.
+ */
+public class RestconfProbeBatcher {
+    private final Logger log = getLogger(getClass());
+
+    public static final long DEFAULT_BATCH_WINDOW_MS = 100;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+
+    /**
+     * Cheap, mandatory RESTCONF resource (RFC 8040 section 3.3.3)
+     */
+    public static final String PROBE_RESOURCE = "/yang-library-version";
+    static final String PROBE_MEDIA_TYPE = "application/yang-data+json";
+    private static final MediaType EDIT_MEDIA_TYPE = MediaType.parse(PROBE_MEDIA_TYPE);
+
+    private final Timer timer;
+    private final BiConsumer<DeviceId, Runnable> dispatcher;
+    private final long batchWindowMs;
+    private final int maxInFlight;
+
+    // Most recent entity tag seen per resource URL
+
+    private final Map<String, String> entityTags = new ConcurrentHashMap<>();
+    private final AtomicLong editSequence = new AtomicLong();
+
+    // All guarded by 'this'
+
+    private Map<String, Request> pending = new HashMap<>();
+    private final Map<String, Request> inFlight = new HashMap<>();
+    private final Queue<Request> ready = new ArrayDeque<>();
+    private Timeout flushTimeout;
+    private HttpClient client;
+
+    /**
+     * Outcome of a request the device answered
+     */
+    private static final class Result {
+        private final String fingerprint;
+        private final String content;       // Null if 'not modified' or an error status
+        private final boolean accepted;     // False if the device answered with an error
+
+        private Result(String fingerprint, String content, boolean accepted) {
+            this.fingerprint = fingerprint;
+            this.content = content;
+            this.accepted = accepted;
+        }
+    }
+
+    /**
+     * A request for one resource, shared by every caller that asked for it
+     */
+    private final class Request {
+        private final String key;
+        private final DeviceId deviceId;
+        private final String userName;
+        private final String password;
+        private final String url;
+        private final String accept;
+        private final boolean conditional;
+        private final String body;          // Edit content, null for a read
+        private final int timeoutMs;
+        private final CompletableFuture<Result> future = new CompletableFuture<>();
+        private volatile ResponseFuture response;
+        private Timeout timeout;
+
+        private Request(String key, RestconfDeviceInfo info, String url, String accept,
+                        boolean conditional, String body) {
+            this.key = key;
+            this.deviceId = info.getDeviceId();
+            this.userName = info.getUserName();
+            this.password = info.getPassword();
+            this.url = url;
+            this.accept = accept;
+            this.conditional = conditional;
+            this.body = body;
+            this.timeoutMs = info.getSocketTimeout();
+        }
+    }
+
+    /**
+     * Create a probe batcher
+     *
+     * @param timer         timer used for batching windows and request timeouts
+     * @param dispatcher    runs a task on behalf of a device, results are delivered
+     *                      to callers through it
+     * @param batchWindowMs time to collect requests before issuing them
+     * @param maxInFlight   maximum number of requests outstanding at once
+     */
+    public RestconfProbeBatcher(Timer timer, BiConsumer<DeviceId, Runnable> dispatcher,
+                                long batchWindowMs, int maxInFlight) {
+        this.timer = timer;
+        this.dispatcher = dispatcher;
+        this.batchWindowMs = batchWindowMs;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Create the shared HTTP client
+     */
+    public synchronized void start() {
+        if (client == null) {
+            client = HttpClient.builder()
+                    .followRedirects()
+                    .build();
+        }
+    }
+
+    /**
+     * Fail outstanding requests and release the HTTP client
+     */
+    public void stop() {
+        List<Request> outstanding = new ArrayList<>();
+        HttpClient stopped;
+
+        synchronized (this) {
+            if (flushTimeout != null) {
+                flushTimeout.cancel();
+                flushTimeout = null;
+            }
+            outstanding.addAll(pending.values());
+            outstanding.addAll(ready);
+            outstanding.addAll(inFlight.values());
+            pending.clear();
+            ready.clear();
+            inFlight.clear();
+            entityTags.clear();
+
+            stopped = client;
+            client = null;
+        }
+        // Failed outside the lock, completion runs the callers' continuations
+
+        outstanding.forEach(request -> complete(request, null, "stopped"));
+
+        if (stopped != null) {
+            stopped.shutdown();
+        }
+    }
+
+    /**
+     * Request a probe of a device
+     *
+     * @param info device to probe, supplies its credentials and socket timeout
+     * @param url  URL of the probe resource
+     *
+     * @return future completed with true if the device answered, even with an error
+     */
+    public CompletableFuture<Boolean> probe(RestconfDeviceInfo info, String url) {
+        return deliver(info, request(info, url, PROBE_MEDIA_TYPE, true), Objects::nonNull);
+    }
+
+    /**
+     * Fingerprint a resource of a device.  The device may answer 'not modified' if the
+     * resource has not changed since it was last requested.  An error status is
+     * fingerprinted as such, the device answered even if it refused the request.
+     *
+     * @param info device to query, supplies its credentials and socket timeout
+     * @param url  URL of the resource
+     *
+     * @return future completed with the resource fingerprint, or null if the device
+     * could not be reached
+     */
+    public CompletableFuture<String> fetch(RestconfDeviceInfo info, String url) {
+        return deliver(info, request(info, url, PROBE_MEDIA_TYPE, true),
+                result -> result == null ? null : result.fingerprint);
+    }
+
+    /**
+     * Read a resource of a device
+     *
+     * @param info device to query, supplies its credentials and socket timeout
+     * @param url  URL of the resource
+     *
+     * @return future completed with the resource content, or null if the request failed
+     */
+    public CompletableFuture<String> get(RestconfDeviceInfo info, String url) {
+        return get(info, url, PROBE_MEDIA_TYPE);
+    }
+
+    /**
+     * Read a resource of a device in a specific media type
+     *
+     * @param info      device to query, supplies its credentials and socket timeout
+     * @param url       URL of the resource
+     * @param mediaType media type to accept
+     *
+     * @return future completed with the resource content, or null if the request failed
+     */
+    public CompletableFuture<String> get(RestconfDeviceInfo info, String url, String mediaType) {
+        return deliver(info, request(info, url, mediaType, false),
+                result -> result == null ? null : result.content);
+    }
+
+    /**
+     * Merge content into a resource of a device with a RESTCONF PATCH.  The edit is
+     * issued as soon as the number of requests in flight allows.
+     *
+     * @param info device to edit, supplies its credentials and socket timeout
+     * @param url  URL of the resource
+     * @param body JSON content to merge into the resource
+     *
+     * @return future completed with true if the device accepted the edit
+     */
+    public CompletableFuture<Boolean> patch(RestconfDeviceInfo info, String url, String body) {
+        Request request = new Request("!" + editSequence.incrementAndGet(), info, url,
+                PROBE_MEDIA_TYPE, false, body);
+        boolean started;
+
+        synchronized (this) {
+            started = client != null && isSupported(info);
+
+            if (started) {
+                ready.add(request);
+                launch();
+            }
+        }
+        if (!started) {
+            request.future.complete(null);
+        }
+        return deliver(info, request.future, result -> result != null && result.accepted);
+    }
+
+    /**
+     * Queue a request.  Requests for a resource already waiting or in flight share
+     * its result.
+     */
+    private CompletableFuture<Result> request(RestconfDeviceInfo info, String url, String accept,
+                                              boolean conditional) {
+        if (!isSupported(info)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String key = (conditional ? "?" : "") + (PROBE_MEDIA_TYPE.equals(accept) ? "" : accept + " ") + url;
+        Request request;
+
+        synchronized (this) {
+            request = inFlight.get(key);
+
+            if (request == null) {
+                request = pending.computeIfAbsent(key, k -> new Request(k, info, url, accept, conditional, null));
+            }
+            if (client == null) {
+                pending.remove(key);
+                request = null;
+
+            } else if (flushTimeout == null && !pending.isEmpty()) {
+                flushTimeout = timer.newTimeout(timeout -> flush(), batchWindowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        return request == null ? CompletableFuture.completedFuture(null) : request.future;
+    }
+
+    /**
+     * Can requests for a device be issued on the shared client
+     *
+     * @param info device information
+     *
+     * @return false if the device requires TLS, which the client does not support
+     */
+    static boolean isSupported(RestconfDeviceInfo info) {
+        return !info.getTLS();
+    }
+
+    /**
+     * Hand a request's result to the caller on the device's dispatcher, keeping the
+     * caller's continuations off the HTTP client and timer threads
+     */
+    private <T> CompletableFuture<T> deliver(RestconfDeviceInfo info, CompletableFuture<Result> future,
+                                             Function<Result, T> outcome) {
+        CompletableFuture<T> delivered = new CompletableFuture<>();
+
+        future.thenAccept(result -> {
+            Runnable task = () -> delivered.complete(outcome.apply(result));
+
+            try {
+                dispatcher.accept(info.getDeviceId(), task);
+            } catch (RejectedExecutionException e) {
+                task.run();     // Shutting down, nothing else left to run it
+            }
+        });
+        return delivered;
+    }
+
+    /**
+     * Forget the entity tags of a device's resources
+     *
+     * @param baseUrl base URL of the device
+     */
+    public void invalidate(String baseUrl) {
+        entityTags.keySet().removeIf(url -> url.startsWith(baseUrl));
+    }
+
+    private synchronized void flush() {
+        flushTimeout = null;
+
+        if (pending.isEmpty()) {
+            return;
+        }
+        log.debug("Issuing {} coalesced device requests", pending.size());
+
+        ready.addAll(pending.values());
+        pending = new HashMap<>();
+        launch();
+    }
+
+    private void launch() {
+        while (inFlight.size() < maxInFlight && client != null) {
+            Request request = ready.poll();
+
+            if (request == null) {
+                return;
+            }
+            inFlight.put(request.key, request);
+            send(request);
+        }
+    }
+
+    private void send(Request request) {
+        request.timeout = timer.newTimeout(timeout -> complete(request, null, "timed out"),
+                request.timeoutMs, TimeUnit.MILLISECONDS);
+        try {
+            String entityTag = request.conditional ? entityTags.get(request.url) : null;
+            HttpRequestBuilder builder = (request.body == null ? client.get() : client.request(Method.PATCH))
+                    .setURL(request.url)
+                    .addHeader(Headers.ACCEPT, request.accept);
+
+            if (!Strings.isNullOrEmpty(request.userName)) {
+                builder.basicAuthentication(request.userName, Strings.nullToEmpty(request.password));
+            }
+            if (entityTag != null) {
+                builder.addHeader(Headers.IF_NONE_MATCH, entityTag);
+            }
+            if (request.body != null) {
+                builder.setBody(request.body, EDIT_MEDIA_TYPE);
+            }
+            request.response = builder.execute(new ResponseHandler<String>(String.class) {
+                @Override
+                protected void receive(HttpResponseStatus status, HttpHeaders headers,
+                                       String response) {
+                    String fingerprint = request.body == null ?
+                            fingerprint(request.url, status, headers, response) : null;
+
+                    complete(request, new Result(fingerprint, response, true), null);
+                }
+
+                @Override
+                protected void onErrorResponse(HttpResponseStatus status, HttpHeaders headers,
+                                               String content) {
+                    if (HttpResponseStatus.NOT_MODIFIED.equals(status)) {
+                        complete(request, new Result(fingerprint(request.url, status, headers, content),
+                                null, true), null);
+                    } else {
+                        // Reachable, but refused. Fingerprinted by status so a poll
+                        // still sees a stable answer.
+
+                        log.debug("Request to {} refused: {}", request.deviceId, status);
+                        entityTags.remove(request.url);
+                        complete(request, new Result(status.toString(), null, false), null);
+                    }
+                }
+
+                @Override
+                protected void onError(Throwable error) {
+                    complete(request, null, error.toString());
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            complete(request, null, e.toString());
+        }
+    }
+
+    /**
+     * Fingerprint a response, preferring the device's entity tag
+     *
+     * @param url     resource URL
+     * @param status  response status
+     * @param headers response headers
+     * @param content response body, may be null
+     *
+     * @return fingerprint of the resource
+     */
+    private String fingerprint(String url, HttpResponseStatus status, HttpHeaders headers,
+                               String content) {
+        String entityTag = headers == null ? null : headers.get(HttpHeaders.Names.ETAG);
+
+        if (entityTag != null) {
+            entityTags.put(url, entityTag);
+            return entityTag;
+        }
+        if (HttpResponseStatus.NOT_MODIFIED.equals(status)) {
+            return entityTags.getOrDefault(url, "");
+        }
+        entityTags.remove(url);
+        return Hashing.murmur3_128()
+                .hashString(content == null ? "" : content, StandardCharsets.UTF_8)
+                .toString();
+    }
+
+    private void complete(Request request, Result result, String reason) {
+        if (!request.future.complete(result)) {
+            return;
+        }
+        if (request.timeout != null) {
+            request.timeout.cancel();
+        }
+
+        if (result == null) {
+            ResponseFuture response = request.response;
+
+            if (response != null) {
+                response.cancel();
+            }
+            log.debug("Request to {} failed: {}", request.deviceId, reason);
+        }
+        synchronized (this) {
+            inFlight.remove(request.key, request);
+            launch();
+        }
+    }
+
+    /**
+     * Number of requests waiting for the batching window to close
+     *
+     * @return pending request count
+     */
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Number of requests waiting for room in the cap on requests in flight
+     *
+     * @return ready request count
+     */
+    synchronized int getReadyCount() {
+        return ready.size();
+    }
+
+    /**
+     * Number of requests issued and not yet answered
+     *
+     * @return in flight request count
+     */
+    synchronized int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return toStringHelper(this)
+                .add("pending", pending.size())
+                .add("ready", ready.size())
+                .add("inFlight", inFlight.size())
+                .toString();
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.ctl;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import org.onosproject.net.DeviceId;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static org.onlab.util.Tools.groupedThreads;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Asynchronous TCP connect prober shared by all devices.
+ * <p>
+ * Probes are non-blocking connects multiplexed on a single selector thread, so
+ * thousands of device ports can be checked concurrently without a thread per probe.
+ * Probe timeouts run on the controller's wheel timer. Results are cached for a short
+ * time so that frequent reachability queries from the core are answered from memory.
+ */
+public class RestconfReachabilityProber {
+    private final Logger log = getLogger(getClass());
+
+    public static final long DEFAULT_RESULT_TTL_MS = 5000;
+
+    private final Timer timer;
+    private final long resultTtlNanos;
+    private final Map<DeviceId, Probe> inFlight = new ConcurrentHashMap<>();
+    private final Map<DeviceId, Result> results = new ConcurrentHashMap<>();
+    private final Queue<Probe> pendingRegistrations = new ConcurrentLinkedQueue<>();
+    private Selector selector;
+    private Thread selectorThread;
+    private volatile boolean running;
+
+    /**
+     * Cached outcome of the most recent probe of a device
+     */
+    private static final class Result {
+        private final boolean reachable;
+        private final long expires;          // System.nanoTime() based
+
+        private Result(boolean reachable, long expires) {
+            this.reachable = reachable;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * A single connect attempt
+     */
+    private final class Probe {
+        private final DeviceId deviceId;
+        private final InetSocketAddress address;
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        private final AtomicBoolean done = new AtomicBoolean();
+        private SocketChannel channel;
+        private Timeout timeout;
+
+        private Probe(DeviceId deviceId, InetSocketAddress address) {
+            this.deviceId = deviceId;
+            this.address = address;
+        }
+
+        private void complete(boolean reachable, String reason) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            close();
+
+            if (!reachable) {
+                log.info("Device {} is not reachable on {}: {}", deviceId, address, reason);
+            }
+            results.put(deviceId, new Result(reachable, System.nanoTime() + resultTtlNanos));
+            inFlight.remove(deviceId, this);
+            future.complete(reachable);
+        }
+
+        private void close() {
+            if (channel != null) {
+                try {
+                    channel.close();        // Also cancels any selection key
+                } catch (IOException e) {
+                    log.debug("Probe socket close failed {}: {}", deviceId, e.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a reachability prober
+     *
+     * @param timer       timer used for probe timeouts
+     * @param resultTtlMs how long a probe result remains valid, in milliseconds
+     */
+    public RestconfReachabilityProber(Timer timer, long resultTtlMs) {
+        this.timer = timer;
+        this.resultTtlNanos = TimeUnit.MILLISECONDS.toNanos(resultTtlMs);
+    }
+
+    /**
+     * Start the selector thread
+     *
+     * @throws IOException if the selector could not be opened
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        selector = Selector.open();
+        running = true;
+        selectorThread = groupedThreads("onos/restconf", "prober", log).newThread(this::run);
+        selectorThread.start();
+    }
+
+    /**
+     * Stop the selector thread, failing any probes in progress
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+
+        try {
+            selectorThread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        inFlight.values().forEach(probe -> probe.complete(false, "prober stopped"));
+        results.clear();
+    }
+
+    /**
+     * Probe a device, joining any probe of the same device that is already in progress
+     *
+     * @param deviceId  device to probe
+     * @param address   device address and port
+     * @param timeoutMs connect timeout in milliseconds
+     *
+     * @return future completed with true if a TCP connection could be established
+     */
+    public CompletableFuture<Boolean> probe(DeviceId deviceId, InetSocketAddress address,
+                                            int timeoutMs) {
+        Probe probe = new Probe(deviceId, address);
+        Probe existing = inFlight.putIfAbsent(deviceId, probe);
+
+        if (existing != null) {
+            return existing.future;
+        }
+        if (!running) {
+            probe.complete(false, "prober not running");
+            return probe.future;
+        }
+        try {
+            probe.channel = SocketChannel.open();
+            probe.channel.configureBlocking(false);
+
+            if (probe.channel.connect(address)) {
+                probe.complete(true, null);
+                return probe.future;
+            }
+        } catch (IOException | RuntimeException e) {
+            probe.complete(false, e.toString());
+            return probe.future;
+        }
+        probe.timeout = timer.newTimeout(t -> probe.complete(false, "connect timed out"),
+                Math.max(timeoutMs, 1), TimeUnit.MILLISECONDS);
+
+        pendingRegistrations.add(probe);
+        selector.wakeup();
+        return probe.future;
+    }
+
+    /**
+     * Get the cached reachability of a device without blocking.  A stale or missing
+     * result triggers a new probe in the background.
+     *
+     * @param deviceId  device to look up
+     * @param address   device address and port
+     * @param timeoutMs connect timeout in milliseconds for any new probe
+     *
+     * @return most recent probe result, false if the device has never been probed
+     */
+    public boolean isReachable(DeviceId deviceId, InetSocketAddress address, int timeoutMs) {
+        Result result = results.get(deviceId);
+
+        if (result == null || System.nanoTime() - result.expires > 0) {
+            probe(deviceId, address, timeoutMs);
+        }
+        return result != null && result.reachable;
+    }
+
+    /**
+     * Drop the cached result for a device
+     *
+     * @param deviceId device identifier
+     */
+    public void invalidate(DeviceId deviceId) {
+        results.remove(deviceId);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+                registerPending();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    finishConnect(key);
+                }
+            } catch (ClosedSelectorException e) {
+                break;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Reachability prober error: {}", e.toString());
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.debug("Prober selector close failed: {}", e.toString());
+        }
+    }
+
+    private void registerPending() {
+        Probe probe;
+
+        while ((probe = pendingRegistrations.poll()) != null) {
+            if (probe.done.get()) {
+                continue;       // Timed out before we got to it
+            }
+            try {
+                probe.channel.register(selector, SelectionKey.OP_CONNECT, probe);
+            } catch (IOException | RuntimeException e) {
+                probe.complete(false, e.toString());
+            }
+        }
+    }
+
+    private void finishConnect(SelectionKey key) {
+        Probe probe = (Probe) key.attachment();
+
+        if (!key.isValid()) {
+            return;
+        }
+        try {
+            if (probe.channel.finishConnect()) {
+                probe.complete(true, null);
+            }
+        } catch (IOException e) {
+            probe.complete(false, e.toString());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("inFlight", inFlight.size())
+                .add("cached", results.size())
+                .toString();
+    }
+}
@@ -15,6 +15,8 @@
  */
 package org.onosproject.restconf.ctl;
 
+import org.onosproject.restconf.RestconfDeviceInfo;
+import org.onosproject.restconf.RestconfDeviceOutputEvent;
 import org.onosproject.restconf.RestconfDeviceOutputEventListener;
 import org.onosproject.restconf.RestconfException;
 import org.onosproject.restconf.RestconfSession;
@@ -29,8 +31,21 @@ import org.onosproject.restconf.RestconfSession;
  */
 public class RestconfSessionImpl implements RestconfSession {
 
-    public RestconfSessionImpl() {
+    private final RestconfDeviceInfo deviceInfo;
+    private final RestconfControllerImpl controller;
+    private final RestconfSessionDelegate delegate;
+
+    /**
+     * Create a session to a device
+     *
+     * @param deviceInfo device to create the session for
+     * @param controller controller that dispatches this session's output events
+     */
+    public RestconfSessionImpl(RestconfDeviceInfo deviceInfo, RestconfControllerImpl controller) {
         // TODO: Implement me
+        this.deviceInfo = deviceInfo;
+        this.controller = controller;
+        this.delegate = controller.getSessionDelegate();
     }
 
     /**
@@ -183,6 +198,15 @@ public class RestconfSessionImpl implements RestconfSession {
         return "";
     }
 
+    /**
+     * Publish a reply or notification received on this session to its output listeners
+     *
+     * @param event device output event
+     */
+    void publish(RestconfDeviceOutputEvent event) {
+        delegate.notify(event);
+    }
+
     /**
      * Remove a listener from the underlying stream handler implementation.
      *
@@ -190,7 +214,9 @@ public class RestconfSessionImpl implements RestconfSession {
      */
     @Override
     public void addDeviceOutputListener(RestconfDeviceOutputEventListener listener) {
-        // TODO: Implement this
+        // Replies and notifications from this session are published through the
+        // delegate and dispatched to listeners on their own threads
+        controller.addOutputListener(deviceInfo.getDeviceId(), listener);
     }
 
     /**
@@ -200,6 +226,6 @@ public class RestconfSessionImpl implements RestconfSession {
      */
     @Override
     public void removeDeviceOutputListener(RestconfDeviceOutputEventListener listener) {
-        // TODO: Implement this
+        controller.removeOutputListener(deviceInfo.getDeviceId(), listener);
     }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.ctl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests bulk device operations.
+ */
+public class RestconfBulkOperationTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private ExecutorService executor;
+
+    private static List<DeviceId> devices(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(index -> DeviceId.deviceId("restconf:10.0." + (index / 256) + "."
+                        + (index % 256) + ":8080"))
+                .collect(Collectors.toList());
+    }
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(16);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void everyDeviceHasAResult() throws InterruptedException, ExecutionException,
+            TimeoutException {
+        List<DeviceId> devices = devices(1000);
+
+        Map<DeviceId, Boolean> results = new RestconfBulkOperation<>("test", devices,
+                Function.identity(), deviceId -> devices.indexOf(deviceId) % 2 == 0, 16, 4)
+                .start(executor).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(1000, results.size());
+        for (int index = 0; index < devices.size(); index++) {
+            assertEquals(index % 2 == 0, results.get(devices.get(index)));
+        }
+    }
+
+    @Test
+    public void parallelismBounded() throws InterruptedException, ExecutionException,
+            TimeoutException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        Map<DeviceId, Boolean> results = new RestconfBulkOperation<>("test", devices(200),
+                Function.identity(), deviceId -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    return true;
+                }, 8, 3)
+                .start(executor).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(200, results.size());
+        assertTrue(maxRunning.get() <= 3);
+    }
+
+    @Test
+    public void failedOperationReported() throws InterruptedException, ExecutionException,
+            TimeoutException {
+        List<DeviceId> devices = devices(10);
+        DeviceId failing = devices.get(3);
+
+        Map<DeviceId, Boolean> results = new RestconfBulkOperation<>("test", devices,
+                Function.identity(), deviceId -> {
+                    if (deviceId.equals(failing)) {
+                        throw new IllegalStateException("failed");
+                    }
+                    return true;
+                }, 4, 2)
+                .start(executor).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(10, results.size());
+        assertFalse(results.get(failing));
+        assertEquals(9, results.values().stream().filter(Boolean::booleanValue).count());
+    }
+
+    @Test
+    public void noItems() throws InterruptedException, ExecutionException, TimeoutException {
+        assertTrue(new RestconfBulkOperation<DeviceId>("test", ImmutableList.of(),
+                Function.identity(), deviceId -> true, 4, 2)
+                .start(executor).get(TIMEOUT_SECONDS, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test
+    public void rejectedWorkersFailTheirDevices() throws InterruptedException, ExecutionException,
+            TimeoutException {
+        Map<DeviceId, Boolean> results = new RestconfBulkOperation<>("test", devices(20),
+                Function.identity(), deviceId -> true, 4, 2)
+                .start(task -> {
+                    throw new RejectedExecutionException("shut down");
+                })
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(20, results.size());
+        assertFalse(results.containsValue(true));
+    }
+}
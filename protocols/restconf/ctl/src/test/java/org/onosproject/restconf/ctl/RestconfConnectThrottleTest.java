@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.ctl;
+
+import io.netty.util.HashedWheelTimer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the connection admission throttle.
+ */
+public class RestconfConnectThrottleTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private HashedWheelTimer timer;
+    private RestconfConnectThrottle throttle;
+    private final List<DeviceId> admitted = new CopyOnWriteArrayList<>();
+
+    private static DeviceId device(int index) {
+        return DeviceId.deviceId("restconf:10.0.0." + index + ":8080");
+    }
+
+    private boolean admit(int index, boolean priority) {
+        DeviceId deviceId = device(index);
+
+        return throttle.admit(deviceId, priority, () -> admitted.add(deviceId));
+    }
+
+    @Before
+    public void setUp() {
+        timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+    }
+
+    @After
+    public void tearDown() {
+        throttle.clear();
+        timer.stop();
+    }
+
+    @Test
+    public void burstAdmittedImmediately() {
+        throttle = new RestconfConnectThrottle(timer, 1, 3);
+
+        for (int index = 1; index <= 5; index++) {
+            assertTrue(admit(index, false));
+        }
+        assertEquals(3, admitted.size());
+        assertEquals(2, throttle.getQueueDepth());
+    }
+
+    @Test
+    public void waitingDeviceDeduplicated() {
+        throttle = new RestconfConnectThrottle(timer, 1, 1);
+
+        assertTrue(admit(1, false));
+        assertTrue(admit(2, false));
+        assertFalse(admit(2, false));
+        assertFalse(admit(2, true));
+        assertEquals(1, throttle.getQueueDepth());
+
+        // An admitted device may ask again
+
+        assertTrue(admit(1, false));
+        assertEquals(2, throttle.getQueueDepth());
+    }
+
+    @Test
+    public void priorityAdmittedFirst() throws InterruptedException {
+        throttle = new RestconfConnectThrottle(timer, 20, 1);
+
+        CountDownLatch done = new CountDownLatch(4);
+        for (int index = 1; index <= 4; index++) {
+            DeviceId deviceId = device(index);
+
+            throttle.admit(deviceId, index == 4, () -> {
+                admitted.add(deviceId);
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(device(1), admitted.get(0));
+        assertEquals(device(4), admitted.get(1));
+    }
+
+    @Test
+    public void admissionRate() throws InterruptedException {
+        throttle = new RestconfConnectThrottle(timer, 50, 1);
+
+        CountDownLatch done = new CountDownLatch(11);
+        long start = System.nanoTime();
+
+        for (int index = 1; index <= 11; index++) {
+            throttle.admit(device(index), false, done::countDown);
+        }
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // One admitted at once, the other ten at 50 per second
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Admitted too fast: " + elapsed + " mS", elapsed >= 180);
+    }
+
+    @Test
+    public void invalidRateKept() {
+        throttle = new RestconfConnectThrottle(timer, 1, 2);
+
+        assertFalse(throttle.setRate(0, 10));
+        assertFalse(throttle.setRate(10, -1));
+        assertTrue(throttle.toString().contains("rate=1.0"));
+        assertTrue(throttle.toString().contains("burst=2.0"));
+
+        assertTrue(throttle.setRate(5, 10));
+        assertTrue(throttle.toString().contains("rate=5.0"));
+    }
+}
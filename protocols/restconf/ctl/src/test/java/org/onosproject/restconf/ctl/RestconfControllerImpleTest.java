@@ -15,8 +15,266 @@
  */
 package org.onosproject.restconf.ctl;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onosproject.restconf.RestconfDevice;
+import org.onosproject.restconf.RestconfDeviceInfo;
+import org.onosproject.restconf.RestconfDeviceState;
+import org.onosproject.restconf.RestconfExecutionMode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.onosproject.restconf.RestconfDeviceState.ACTIVE;
+import static org.onosproject.restconf.RestconfDeviceState.FAILED;
+import static org.onosproject.restconf.RestconfDeviceState.IDLE;
+
 /**
- * Created by cboling on 3/24/16.
+ * Tests the RESTCONF controller.
  */
 public class RestconfControllerImpleTest {
+
+    private static final long WAIT_MS = 5000;
+
+    private TestController controller;
+
+    @Before
+    public void setUp() {
+        controller = new TestController();
+    }
+
+    @After
+    public void tearDown() {
+        controller.close();
+    }
+
+    private static RestconfDeviceInfo info(String address, int port) {
+        return new RestconfDeviceInfo(IpAddress.valueOf(address), port, false, 5000, "admin",
+                "secret", null, "/restconf", ImmutableList.of("json"), true);
+    }
+
+    @Test
+    public void stateCounters() throws InterruptedException {
+        RestconfDeviceInfo active = info("10.0.0.1", 8080);
+        RestconfDeviceInfo failed = info("10.0.0.2", 8080);
+        RestconfDeviceInfo idle = info("10.0.0.3", 8080);
+
+        controller.replies.put(active.getBaseURL() + "/restconf"
+                        + RestconfDeviceStateMachine.MODULE_SET_ID_RESOURCE,
+                "{\"ietf-yang-library:module-set-id\": \"1\"}");
+
+        controller.createDevice(active);
+        controller.createDevice(failed);
+        controller.createDevice(idle);
+        assertEquals(3, controller.getDeviceCount(IDLE));
+        assertEquals(0, controller.getDeviceCount(ACTIVE));
+
+        controller.getDevice(active.getDeviceId()).start();
+        controller.getDevice(failed.getDeviceId()).start();
+        await(() -> controller.getDeviceCount(ACTIVE) == 1 && controller.getDeviceCount(FAILED) == 1);
+
+        assertEquals(1, controller.getDeviceCount(IDLE));
+        assertEquals(ImmutableSet.of(active.getDeviceId()), controller.getDeviceIds(ACTIVE));
+        assertEquals(ImmutableSet.of(failed.getDeviceId()), controller.getDeviceIds(FAILED));
+        assertEquals(ImmutableSet.of(idle.getDeviceId()), controller.getDeviceIds(IDLE));
+
+        controller.disconnectDevice(active.getDeviceId(), false);
+        assertEquals(0, controller.getDeviceCount(ACTIVE));
+        assertEquals(ImmutableSet.of(active.getDeviceId(), idle.getDeviceId()), controller.getDeviceIds(IDLE));
+
+        controller.removeDevice(failed.getDeviceId());
+        controller.removeDevice(idle.getDeviceId());
+        assertEquals(0, controller.getDeviceCount(FAILED));
+        assertEquals(ImmutableSet.of(active.getDeviceId()), controller.getDeviceIds(IDLE));
+
+        int total = 0;
+        for (int state = 0; state < RestconfDeviceState.NUM_STATES; state++) {
+            total += controller.getDeviceCount(state);
+        }
+        assertEquals(1, total);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidStateCount() {
+        controller.getDeviceCount(RestconfDeviceState.NUM_STATES);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void stateIdsReadOnly() {
+        controller.createDevice(info("10.0.0.1", 8080));
+        controller.getDeviceIds(IDLE).clear();
+    }
+
+    @Test
+    public void addressIndex() {
+        RestconfDeviceInfo first = info("10.0.0.1", 8080);
+        RestconfDeviceInfo second = info("10.0.0.1", 8443);
+
+        RestconfDevice device = controller.createDevice(first);
+        controller.createDevice(second);
+
+        assertSame(device, controller.getDevice(IpAddress.valueOf("10.0.0.1"), 8080));
+        assertSame(controller.getDevice(second.getDeviceId()),
+                controller.getDevice(IpAddress.valueOf("10.0.0.1"), 8443));
+        assertNull(controller.getDevice(IpAddress.valueOf("10.0.0.2"), 8080));
+        assertNull(controller.getDevice(null, 8080));
+
+        controller.removeDevice(first.getDeviceId());
+        assertNull(controller.getDevice(IpAddress.valueOf("10.0.0.1"), 8080));
+        assertNotNull(controller.getDevice(IpAddress.valueOf("10.0.0.1"), 8443));
+    }
+
+    @Test
+    public void addressIndexUnchangedByModify() throws Exception {
+        RestconfDeviceInfo original = info("10.0.0.1", 8080);
+        RestconfDeviceInfo modified = new RestconfDeviceInfo(IpAddress.valueOf("10.0.0.1"), 8080, false,
+                1000, "oper", "other", null, "/api", ImmutableList.of("xml"), true);
+
+        RestconfDevice device = controller.createDevice(original);
+
+        assertEquals(ImmutableMap.of(original.getDeviceId(), true),
+                controller.connectDevices(ImmutableList.of(modified)).get(WAIT_MS, TimeUnit.MILLISECONDS));
+        assertSame(device, controller.getDevice(IpAddress.valueOf("10.0.0.1"), 8080));
+        assertSame(device, controller.getDevice(original.getDeviceId()));
+        assertEquals(1, controller.getDevicesMap().size());
+    }
+
+    @Test
+    public void addressIndexAfterBulkRemove() throws Exception {
+        RestconfDeviceInfo first = info("10.0.0.1", 8080);
+        RestconfDeviceInfo second = info("10.0.0.2", 8080);
+
+        controller.connectDevices(ImmutableList.of(first, second)).get(WAIT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull(controller.getDevice(IpAddress.valueOf("10.0.0.2"), 8080));
+
+        controller.removeDevices(ImmutableList.of(first.getDeviceId(), second.getDeviceId()))
+                .get(WAIT_MS, TimeUnit.MILLISECONDS);
+        assertNull(controller.getDevice(IpAddress.valueOf("10.0.0.1"), 8080));
+        assertNull(controller.getDevice(IpAddress.valueOf("10.0.0.2"), 8080));
+    }
+
+    @Test
+    public void orderKeptAcrossResize() throws InterruptedException {
+        int devices = 8;
+        int tasks = 1000;
+        List<List<Integer>> seen = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(devices * tasks);
+
+        for (int index = 0; index < devices; index++) {
+            seen.add(Collections.synchronizedList(new ArrayList<>()));
+        }
+        for (int task = 0; task < tasks; task++) {
+            if (task == tasks / 3) {
+                controller.setWorkerThreads(2);
+            } else if (task == 2 * tasks / 3) {
+                controller.setWorkerThreads(8);
+            }
+            for (int index = 0; index < devices; index++) {
+                List<Integer> order = seen.get(index);
+                int value = task;
+
+                controller.execute(info("10.0.0." + (index + 1), 8080).getDeviceId(), () -> {
+                    order.add(value);
+                    done.countDown();
+                });
+            }
+        }
+        assertTrue(done.await(WAIT_MS, TimeUnit.MILLISECONDS));
+
+        for (List<Integer> order : seen) {
+            for (int task = 0; task < tasks; task++) {
+                assertEquals(task, (int) order.get(task));
+            }
+        }
+    }
+
+    @Test
+    public void resizeToSameSizeIgnored() {
+        RestconfPartitionedExecutor executor = controller.deviceExecutor;
+
+        controller.setWorkerThreads(RestconfControllerImpl.DEFAULT_WORKER_THREADS);
+        controller.setWorkerThreads(0);
+        assertSame(executor, controller.deviceExecutor);
+    }
+
+    @Test
+    public void executionModeSwitch() throws Exception {
+        Executor executor = controller.getBlockingExecutor();
+        ExecutorService previous = controller.blockingExecutor;
+
+        controller.setExecutionMode(RestconfExecutionMode.VIRTUAL);
+        assertTrue(previous.isShutdown());
+        assertNotSame(previous, controller.blockingExecutor);
+
+        // Executors handed out before the switch follow it
+
+        CompletableFuture<Boolean> ran = new CompletableFuture<>();
+        executor.execute(() -> ran.complete(true));
+        assertTrue(ran.get(WAIT_MS, TimeUnit.MILLISECONDS));
+
+        ExecutorService current = controller.blockingExecutor;
+        controller.setExecutionMode(RestconfExecutionMode.VIRTUAL);
+        controller.setExecutionMode(null);
+        assertSame(current, controller.blockingExecutor);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for condition");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Controller that answers discovery requests from canned replies without
+     * reaching out to any device.
+     */
+    private static final class TestController extends RestconfControllerImpl {
+        private final Map<String, String> replies = new ConcurrentHashMap<>();
+
+        @Override
+        CompletableFuture<String> getUrl(RestconfDeviceInfo info, String url, String mediaType) {
+            return CompletableFuture.completedFuture(replies.get(url));
+        }
+
+        @Override
+        CompletableFuture<Boolean> probeReachability(RestconfDeviceInfo info) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        private void close() {
+            getDevicesMap().keySet().forEach(this::removeDevice);
+            timer.stop();
+            deviceExecutor.shutdownNow();
+            blockingExecutor.shutdownNow();
+            deviceEventQueue.shutdown();
+            stateEventQueue.shutdown();
+            outputEventRing.shutdown();
+        }
+    }
 }
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.ctl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onosproject.restconf.RestconfDeviceIdentity;
+import org.onosproject.restconf.RestconfDeviceInfo;
+import org.onosproject.restconf.RestconfDevice;
+import org.onosproject.restconf.RestconfDeviceState;
+import org.onosproject.restconf.RestconfDeviceStateEvent;
+import org.onosproject.restconf.RestconfDeviceStateMachineException;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.restconf.ctl.RestconfDeviceStateMachine.ACTIVE;
+import static org.onosproject.restconf.ctl.RestconfDeviceStateMachine.DISCOVERY;
+import static org.onosproject.restconf.ctl.RestconfDeviceStateMachine.FAILED;
+import static org.onosproject.restconf.ctl.RestconfDeviceStateMachine.IDLE;
+import static org.onosproject.restconf.ctl.RestconfDeviceStateMachine.POPULATE;
+
+/**
+ * Tests the RESTCONF device state machine.
+ */
+public class RestconfDeviceStateMachineTest {
+
+    private static RestconfDeviceInfo info() {
+        return new RestconfDeviceInfo(IpAddress.valueOf("10.0.0.1"), 8080, false, 5000, "admin",
+                "secret", null, "/restconf", ImmutableList.of("json"), true);
+    }
+
+    @Test
+    public void disconnectReturnsToIdle() {
+        DefaultRestconfDevice device = new DefaultRestconfDevice(info(), null);
+
+        device.start();
+        assertEquals(RestconfDeviceState.DISCOVERY, device.getState());
+
+        device.setDiscoveryResults("/top/restconf", "42", "application/yang-data+json",
+                ImmutableSet.of("urn:x"), RestconfDeviceIdentity.of("Acme", "B", "2.1", "C-42"));
+        device.disconnect();
+
+        assertEquals(RestconfDeviceState.IDLE, device.getState());
+        assertEquals("/restconf", device.getApiRoot());
+        assertEquals("", device.getSnapshot().getModuleSetId());
+        assertTrue(device.getSnapshot().getCapabilities().isEmpty());
+        assertEquals(RestconfDeviceIdentity.unknown(), device.getIdentity());
+
+        // Idle devices may be started again
+
+        device.disconnect();
+        assertEquals(RestconfDeviceState.IDLE, device.getState());
+
+        device.start();
+        assertEquals(RestconfDeviceState.DISCOVERY, device.getState());
+    }
+
+    @Test
+    public void discoveryEvents() throws InterruptedException {
+        TestController controller = new TestController();
+        BlockingQueue<RestconfDeviceStateEvent> events = new LinkedBlockingQueue<>();
+        DefaultRestconfDevice device = new DefaultRestconfDevice(info(), controller);
+        String base = info().getBaseURL();
+
+        controller.replies.put(base + RestconfDeviceStateMachine.rootResource,
+                "<XRD><Link rel='restconf' href='/top/restconf'/></XRD>");
+        controller.replies.put(base + "/top/restconf" + RestconfDeviceStateMachine.MODULE_SET_ID_RESOURCE,
+                "{\"ietf-yang-library:module-set-id\": \"42\"}");
+        controller.replies.put(base + "/top/restconf" + RestconfDeviceIdentity.PLATFORM,
+                "{\"ietf-system:platform\": {\"os-name\": \"AcmeOS\", \"os-release\": \"2.1\"}}");
+        controller.addStateListener(events::add);
+        try {
+            device.start();
+
+            assertEvent(events.poll(5, TimeUnit.SECONDS), IDLE, DISCOVERY, "CONNECT");
+            assertEvent(events.poll(5, TimeUnit.SECONDS), DISCOVERY, POPULATE, "DOWNLOAD");
+            assertEvent(events.poll(5, TimeUnit.SECONDS), POPULATE, ACTIVE, "LOADED");
+
+            assertEquals(ACTIVE, device.getState());
+            assertEquals("/top/restconf", device.getApiRoot());
+            assertEquals("42", device.getSnapshot().getModuleSetId());
+            assertEquals("AcmeOS 2.1", device.getIdentity().swVersion());
+        } finally {
+            device.remove();
+            controller.close();
+        }
+    }
+
+    @Test
+    public void failedDiscoveryEvent() throws InterruptedException {
+        TestController controller = new TestController();
+        BlockingQueue<RestconfDeviceStateEvent> events = new LinkedBlockingQueue<>();
+        DefaultRestconfDevice device = new DefaultRestconfDevice(info(), controller);
+
+        controller.addStateListener(events::add);
+        try {
+            device.start();
+
+            assertEvent(events.poll(5, TimeUnit.SECONDS), IDLE, DISCOVERY, "CONNECT");
+            assertEvent(events.poll(5, TimeUnit.SECONDS), DISCOVERY, FAILED,
+                    "ERROR: ietf-yang-library module-set-id could not be read");
+            assertEquals("ietf-yang-library module-set-id could not be read", device.getFailureReason());
+        } finally {
+            device.remove();
+            controller.close();
+        }
+    }
+
+    @Test
+    public void concurrentInputsNeverLost() throws InterruptedException, RestconfDeviceStateMachineException {
+        // Administratively down so that INACTIVE does not schedule a reconnect
+
+        TestController controller = new TestController();
+        RestconfDeviceInfo info = new RestconfDeviceInfo(IpAddress.valueOf("10.0.0.1"), 8080, false,
+                5000, "admin", "secret", null, "/restconf", ImmutableList.of("json"), false);
+        RestconfDeviceStateMachine machine =
+                new RestconfDeviceStateMachine(new DefaultRestconfDevice(info, null), controller);
+        int threads = 4;
+        int inputs = 1000;
+        CountDownLatch start = new CountDownLatch(1);
+        Queue<Exception> errors = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            machine.resume();
+            assertEquals(ACTIVE, machine.getState());
+
+            for (int thread = 0; thread < threads; thread++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        for (int input = 0; input < inputs; input++) {
+                            if (input % 2 == 0) {
+                                machine.adminStatusDown();
+                            } else {
+                                machine.adminStatusUp();
+                            }
+                        }
+                    } catch (InterruptedException | RestconfDeviceStateMachineException e) {
+                        errors.add(e);
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+            assertTrue(errors.toString(), errors.isEmpty());
+        } finally {
+            machine.stop();
+            controller.close();
+        }
+
+        // Every transition reported must leave from where the previous one arrived, so
+        // replaying them from IDLE has to end in the current state
+
+        int[] visits = new int[RestconfDeviceState.NUM_STATES];
+
+        visits[IDLE] = 1;
+        for (int[] transition : controller.transitions) {
+            visits[transition[0]]--;
+            visits[transition[1]]++;
+        }
+        for (int state = 0; state < visits.length; state++) {
+            assertEquals(RestconfDeviceState.toString(state), state == machine.getState() ? 1 : 0,
+                    visits[state]);
+        }
+        assertTrue(controller.transitions.size() > 1);
+    }
+
+    private static void assertEvent(RestconfDeviceStateEvent event, int previousState, int newState,
+                                    String cause) {
+        assertNotNull("No state event", event);
+        assertEquals(RestconfDeviceState.toString(previousState),
+                RestconfDeviceState.toString(event.getPreviousState()));
+        assertEquals(RestconfDeviceState.toString(newState), RestconfDeviceState.toString(event.getNewState()));
+        assertEquals(cause, event.getCause());
+    }
+
+    @Test
+    public void firstRetryDelay() {
+        RestconfDeviceStateMachine machine =
+                new RestconfDeviceStateMachine(new DefaultRestconfDevice(info(), null), null);
+
+        for (int sample = 0; sample < 100; sample++) {
+            assertDelayWithin(RestconfDeviceStateMachine.RETRY_INITIAL_DELAY_MS, machine.getRetryDelay());
+        }
+    }
+
+    @Test
+    public void retryDelayBacksOff() {
+        long expected = RestconfDeviceStateMachine.RETRY_INITIAL_DELAY_MS;
+
+        for (int retries = 0; retries < 40; retries++) {
+            for (int sample = 0; sample < 100; sample++) {
+                assertDelayWithin(expected, RestconfDeviceStateMachine.getRetryDelay(retries));
+            }
+            expected = Math.min(expected * 2, RestconfDeviceStateMachine.RETRY_MAX_DELAY_MS);
+        }
+    }
+
+    @Test
+    public void retryDelayJittered() {
+        Set<Long> delays = new HashSet<>();
+
+        for (int sample = 0; sample < 100; sample++) {
+            delays.add(RestconfDeviceStateMachine.getRetryDelay(3));
+        }
+        assertTrue("No jitter applied: " + delays, delays.size() > 1);
+    }
+
+    private static void assertDelayWithin(long expected, long delay) {
+        long jitter = expected * RestconfDeviceStateMachine.RETRY_JITTER_PERCENT / 100;
+
+        assertTrue("Delay " + delay + " below " + (expected - jitter), delay >= expected - jitter);
+        assertTrue("Delay " + delay + " above " + (expected + jitter), delay <= expected + jitter);
+    }
+
+    @Test
+    public void apiRootFromHostMeta() {
+        assertEquals("/restconf", RestconfDeviceStateMachine.parseApiRoot(
+                "<XRD xmlns='http://docs.oasis-open.org/ns/xri/xrd-1.0'>\n"
+                        + "  <Link rel='restconf' href='/restconf'/>\n"
+                        + "</XRD>"));
+        assertEquals("/top/restconf", RestconfDeviceStateMachine.parseApiRoot(
+                "<XRD><Link rel=\"author\" href=\"/me\"/>"
+                        + "<Link href=\"/top/restconf/\" rel=\"restconf\"></Link></XRD>"));
+        assertEquals("/restconf", RestconfDeviceStateMachine.parseApiRoot(
+                "<xrd:XRD><xrd:Link rel='restconf' href='https://10.0.0.1:8443/restconf'/></xrd:XRD>"));
+    }
+
+    @Test
+    public void apiRootMissing() {
+        assertNull(RestconfDeviceStateMachine.parseApiRoot(null));
+        assertNull(RestconfDeviceStateMachine.parseApiRoot("<XRD><Link rel='author' href='/me'/></XRD>"));
+        assertNull(RestconfDeviceStateMachine.parseApiRoot("<XRD><Link rel='restconf' href='/'/></XRD>"));
+        assertNull(RestconfDeviceStateMachine.parseApiRoot("not xml"));
+    }
+
+    @Test
+    public void moduleSetId() {
+        assertEquals("abc123", RestconfDeviceStateMachine.parseModuleSetId(
+                "{\"ietf-yang-library:module-set-id\": \"abc123\"}"));
+        assertEquals("42", RestconfDeviceStateMachine.parseModuleSetId(
+                "{\"ietf-yang-library:modules-state\": {\"module-set-id\": \"42\", \"module\": []}}"));
+        assertNull(RestconfDeviceStateMachine.parseModuleSetId(null));
+        assertNull(RestconfDeviceStateMachine.parseModuleSetId("{\"module-set-id\": \"\"}"));
+        assertNull(RestconfDeviceStateMachine.parseModuleSetId("<module-set-id>1</module-set-id>"));
+    }
+
+    @Test
+    public void capabilities() {
+        assertEquals(ImmutableSet.of("urn:ietf:params:restconf:capability:depth:1.0",
+                "urn:ietf:params:restconf:capability:fields:1.0"),
+                RestconfDeviceStateMachine.parseCapabilities(
+                        "{\"ietf-restconf-monitoring:capabilities\": {\"capability\": ["
+                                + "\"urn:ietf:params:restconf:capability:depth:1.0\","
+                                + "\"urn:ietf:params:restconf:capability:fields:1.0\"]}}"));
+        assertTrue(RestconfDeviceStateMachine.parseCapabilities(null).isEmpty());
+        assertTrue(RestconfDeviceStateMachine.parseCapabilities("{}").isEmpty());
+    }
+
+    /**
+     * Controller that answers discovery requests from canned replies and records
+     * every state transition as it is reported.
+     */
+    private static final class TestController extends RestconfControllerImpl {
+        private final Map<String, String> replies = new ConcurrentHashMap<>();
+        private final Queue<int[]> transitions = new ConcurrentLinkedQueue<>();
+
+        @Override
+        CompletableFuture<String> getUrl(RestconfDeviceInfo info, String url, String mediaType) {
+            return CompletableFuture.completedFuture(replies.get(url));
+        }
+
+        @Override
+        CompletableFuture<Boolean> probeReachability(RestconfDeviceInfo info) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        @Override
+        void stateChanged(RestconfDevice device, int prevState, int newState, String cause) {
+            transitions.add(new int[]{prevState, newState});
+            super.stateChanged(device, prevState, newState, cause);
+        }
+
+        private void close() {
+            timer.stop();
+            deviceExecutor.shutdownNow();
+            stateEventQueue.shutdown();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.ctl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the bounded, lossless event queue.
+ */
+public class RestconfEventQueueTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private RestconfEventQueue<Integer> queue;
+
+    @Before
+    public void setUp() {
+        queue = new RestconfEventQueue<>("queue-test", 2);
+    }
+
+    @After
+    public void tearDown() {
+        queue.shutdown();
+    }
+
+    @Test
+    public void slowConsumerStallsProducer() throws InterruptedException {
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        queue.addConsumer("slow", event -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(event);
+            if (event == 9) {
+                done.countDown();
+            }
+        });
+        Thread producer = new Thread(() -> {
+            for (int event = 0; event < 10; event++) {
+                queue.publish(event);
+            }
+        });
+        producer.start();
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        while (queue.getStalls("slow") == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(queue.getStalls("slow") > 0);
+        assertTrue(producer.isAlive());
+
+        release.countDown();
+        producer.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // Nothing is dropped and order is kept
+
+        assertEquals(10, received.size());
+        for (int event = 0; event < 10; event++) {
+            assertEquals(event, (int) received.get(event));
+        }
+    }
+
+    @Test
+    public void reentrantPublishDoesNotWait() throws InterruptedException {
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        queue.addConsumer("reentrant", event -> {
+            received.add(event);
+            if (event < 10) {
+                // Publishing more than the capacity from the consumer's own thread
+
+                queue.publish(event * 10 + 10);
+                queue.publish(event * 10 + 11);
+                queue.publish(event * 10 + 12);
+            }
+            if (received.size() == 4) {
+                done.countDown();
+            }
+        });
+        queue.publish(0);
+
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(0, queue.getStalls("reentrant"));
+    }
+
+    @Test
+    public void removedConsumer() {
+        queue.addConsumer("removed", event -> { });
+        assertEquals(0, queue.getLag("removed"));
+
+        queue.removeConsumer("removed");
+        assertEquals(-1, queue.getLag("removed"));
+        assertEquals(-1, queue.getStalls("removed"));
+    }
+}
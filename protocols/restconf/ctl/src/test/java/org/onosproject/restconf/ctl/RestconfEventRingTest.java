@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.ctl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the event ring buffer.
+ */
+public class RestconfEventRingTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private RestconfEventRing<Integer> ring;
+
+    @Before
+    public void setUp() {
+        ring = new RestconfEventRing<>("ring-test", 4);
+    }
+
+    @After
+    public void tearDown() {
+        ring.shutdown();
+    }
+
+    @Test
+    public void eventsDeliveredInOrder() throws InterruptedException {
+        ring = new RestconfEventRing<>("ring-test", 2048);
+
+        List<Integer> first = new CopyOnWriteArrayList<>();
+        List<Integer> second = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+
+        ring.addConsumer("first", event -> {
+            first.add(event);
+            if (event == 999) {
+                done.countDown();
+            }
+        });
+        ring.addConsumer("second", event -> {
+            second.add(event);
+            if (event == 999) {
+                done.countDown();
+            }
+        });
+        for (int event = 0; event < 1000; event++) {
+            ring.publish(event);
+        }
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        for (int event = 0; event < 1000; event++) {
+            assertEquals(event, (int) first.get(event));
+            assertEquals(event, (int) second.get(event));
+        }
+        assertEquals(0, ring.getOverruns("first"));
+        assertEquals(0, ring.getOverruns("second"));
+    }
+
+    @Test
+    public void slowConsumerOverrun() throws InterruptedException {
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        ring.addConsumer("slow", event -> {
+            received.add(event);
+            if (event == 0) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (event == 20) {
+                done.countDown();
+            }
+        });
+        ring.publish(0);
+        assertTrue(blocked.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // Publishing never waits on the blocked consumer
+
+        for (int event = 1; event <= 20; event++) {
+            ring.publish(event);
+        }
+        // Event 0 is still being handled, so none are processed yet
+
+        assertEquals(21, ring.getLag("slow"));
+
+        release.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // The overwritten events are skipped and counted, what is left is still in order
+
+        for (int index = 1; index < received.size(); index++) {
+            assertTrue(received.get(index) > received.get(index - 1));
+        }
+        assertTrue(received.size() <= 1 + 4);
+        assertEquals(21 - received.size(), ring.getOverruns("slow"));
+    }
+
+    @Test
+    public void unknownConsumer() {
+        assertEquals(-1, ring.getLag("missing"));
+        assertEquals(-1, ring.getOverruns("missing"));
+    }
+}
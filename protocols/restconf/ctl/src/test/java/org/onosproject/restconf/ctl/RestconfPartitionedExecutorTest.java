@@ -0,0 +1,184 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.ctl;
+
+import org.junit.After;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Tests per-device ordering of the partitioned executor, and across a resize of the
+ * controller's device worker partitions.
+ */
+public class RestconfPartitionedExecutorTest {
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final int DEVICES = 8;
+    private static final int TASKS = 500;
+
+    private RestconfPartitionedExecutor executor;
+    private RestconfControllerImpl controller;
+
+    private static DeviceId device(int index) {
+        return DeviceId.deviceId("restconf:10.0.0." + index + ":8080");
+    }
+
+    @After
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (controller != null) {
+            controller.deviceExecutor.shutdownNow();
+            controller.blockingExecutor.shutdownNow();
+        }
+    }
+
+    private static void assertInOrder(Map<DeviceId, List<Integer>> executed) {
+        assertEquals(DEVICES, executed.size());
+
+        executed.values().forEach(tasks -> {
+            assertEquals(TASKS, tasks.size());
+            for (int task = 0; task < TASKS; task++) {
+                assertEquals(task, (int) tasks.get(task));
+            }
+        });
+    }
+
+    @Test
+    public void devicePartitionIsStable() {
+        executor = new RestconfPartitionedExecutor(4, "restconf-test", "worker-",
+                getLogger(getClass()));
+
+        assertEquals(4, executor.size());
+        for (int index = 1; index <= DEVICES; index++) {
+            int partition = executor.partitionOf(device(index));
+
+            assertTrue(partition >= 0 && partition < 4);
+            assertEquals(partition, executor.partitionOf(device(index)));
+        }
+    }
+
+    @Test
+    public void perDeviceOrdering() throws InterruptedException {
+        executor = new RestconfPartitionedExecutor(4, "restconf-test", "worker-",
+                getLogger(getClass()));
+
+        Map<DeviceId, List<Integer>> executed = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(DEVICES * TASKS);
+
+        for (int task = 0; task < TASKS; task++) {
+            for (int index = 1; index <= DEVICES; index++) {
+                DeviceId deviceId = device(index);
+                int value = task;
+
+                executor.execute(deviceId, () -> {
+                    executed.computeIfAbsent(deviceId, k -> new CopyOnWriteArrayList<>()).add(value);
+                    done.countDown();
+                });
+            }
+        }
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertInOrder(executed);
+    }
+
+    @Test
+    public void blockedPartitionDoesNotStallOthers() throws InterruptedException {
+        executor = new RestconfPartitionedExecutor(4, "restconf-test", "worker-",
+                getLogger(getClass()));
+
+        DeviceId blocked = device(1);
+        DeviceId other = null;
+
+        for (int index = 2; other == null; index++) {
+            if (executor.partitionOf(device(index)) != executor.partitionOf(blocked)) {
+                other = device(index);
+            }
+        }
+        assertNotEquals(executor.partitionOf(blocked), executor.partitionOf(other));
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch ran = new CountDownLatch(1);
+
+        executor.execute(blocked, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(other, ran::countDown);
+
+        assertTrue(ran.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    public void orderingKeptAcrossResize() throws InterruptedException {
+        controller = new RestconfControllerImpl();
+
+        Map<DeviceId, List<Integer>> executed = new ConcurrentHashMap<>();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(DEVICES * TASKS);
+        List<Integer> sizes = new ArrayList<>();
+
+        for (int task = 0; task < TASKS; task++) {
+            if (task == TASKS / 3) {
+                controller.setWorkerThreads(7);
+                sizes.add(controller.deviceExecutor.size());
+            } else if (task == 2 * TASKS / 3) {
+                controller.setWorkerThreads(3);
+                sizes.add(controller.deviceExecutor.size());
+            }
+            for (int index = 1; index <= DEVICES; index++) {
+                DeviceId deviceId = device(index);
+                int value = task;
+
+                controller.execute(deviceId, () -> {
+                    if (value == 0) {
+                        // Hold work on the original partitions until after both resizes
+
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    executed.computeIfAbsent(deviceId, k -> new CopyOnWriteArrayList<>()).add(value);
+                    done.countDown();
+                });
+            }
+        }
+        release.countDown();
+
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(7, (int) sizes.get(0));
+        assertEquals(3, (int) sizes.get(1));
+        assertInOrder(executed);
+    }
+}
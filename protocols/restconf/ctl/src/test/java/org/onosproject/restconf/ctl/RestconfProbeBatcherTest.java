@@ -0,0 +1,213 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.ctl;
+
+import com.google.common.collect.ImmutableList;
+import io.netty.util.HashedWheelTimer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.packet.IpAddress;
+import org.onosproject.restconf.RestconfDeviceInfo;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests coalescing and flow control of batched device requests.
+ */
+public class RestconfProbeBatcherTest {
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final long BATCH_WINDOW_MS = 200;
+    private static final int SOCKET_TIMEOUT_MS = 500;
+
+    private HashedWheelTimer timer;
+    private RestconfProbeBatcher batcher;
+    private ServerSocket server;
+    private final List<SocketChannel> backlog = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+
+        // Requests go to a listener whose accept backlog is full, so none of them
+        // are answered and each stays in flight until it times out
+
+        server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        for (int index = 0; index < 4; index++) {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.connect(server.getLocalSocketAddress());
+            backlog.add(channel);
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (batcher != null) {
+            batcher.stop();
+        }
+        timer.stop();
+        server.close();
+        for (SocketChannel channel : backlog) {
+            channel.close();
+        }
+    }
+
+    private void start(int maxInFlight) {
+        batcher = new RestconfProbeBatcher(timer, (deviceId, task) -> task.run(), BATCH_WINDOW_MS,
+                maxInFlight);
+        batcher.start();
+    }
+
+    private RestconfDeviceInfo info(boolean tls) {
+        return new RestconfDeviceInfo(IpAddress.valueOf("127.0.0.1"), server.getLocalPort(), tls,
+                SOCKET_TIMEOUT_MS, "admin", "secret", null, "/restconf", ImmutableList.of("json"), true);
+    }
+
+    private String url(String resource) {
+        return info(false).getBaseURL() + "/restconf" + resource;
+    }
+
+    private static <T> T result(CompletableFuture<T> future) throws Exception {
+        return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void requestsCoalesced() throws Exception {
+        start(RestconfProbeBatcher.DEFAULT_MAX_IN_FLIGHT);
+
+        String url = url(RestconfProbeBatcher.PROBE_RESOURCE);
+        CompletableFuture<Boolean> first = batcher.probe(info(false), url);
+        CompletableFuture<Boolean> second = batcher.probe(info(false), url);
+        CompletableFuture<String> fingerprint = batcher.fetch(info(false), url);
+        assertEquals(1, batcher.getPendingCount());
+
+        // Plain reads and other media types are separate requests
+
+        CompletableFuture<String> content = batcher.get(info(false), url);
+        CompletableFuture<String> xml = batcher.get(info(false), url, "application/yang-data+xml");
+        CompletableFuture<Boolean> other = batcher.probe(info(false), url("/data"));
+        assertEquals(4, batcher.getPendingCount());
+
+        await(() -> batcher.getPendingCount() == 0);
+        assertEquals(4, batcher.getInFlightCount());
+
+        // Joins the request already in flight
+
+        CompletableFuture<Boolean> late = batcher.probe(info(false), url);
+        assertEquals(0, batcher.getPendingCount());
+        assertEquals(4, batcher.getInFlightCount());
+
+        assertFalse(result(first));
+        assertFalse(result(second));
+        assertFalse(result(late));
+        assertNull(result(fingerprint));
+        assertNull(result(content));
+        assertNull(result(xml));
+        assertFalse(result(other));
+        await(() -> batcher.getInFlightCount() == 0);
+    }
+
+    @Test
+    public void inFlightCapped() throws Exception {
+        start(2);
+
+        List<CompletableFuture<Boolean>> probes = new ArrayList<>();
+        for (int index = 0; index < 5; index++) {
+            probes.add(batcher.probe(info(false), url("/data/resource-" + index)));
+        }
+        await(() -> batcher.getPendingCount() == 0);
+        assertEquals(2, batcher.getInFlightCount());
+        assertEquals(3, batcher.getReadyCount());
+
+        for (CompletableFuture<Boolean> probe : probes) {
+            assertFalse(result(probe));
+        }
+        assertEquals(0, batcher.getReadyCount());
+        await(() -> batcher.getInFlightCount() == 0);
+    }
+
+    @Test
+    public void editsNotCoalesced() throws Exception {
+        start(RestconfProbeBatcher.DEFAULT_MAX_IN_FLIGHT);
+
+        String url = url("/data/interfaces");
+        CompletableFuture<Boolean> first = batcher.patch(info(false), url, "{}");
+        CompletableFuture<Boolean> second = batcher.patch(info(false), url, "{}");
+
+        assertEquals(0, batcher.getPendingCount());
+        assertEquals(2, batcher.getInFlightCount());
+        assertFalse(result(first));
+        assertFalse(result(second));
+    }
+
+    @Test
+    public void tlsDeviceNotSent() throws Exception {
+        start(RestconfProbeBatcher.DEFAULT_MAX_IN_FLIGHT);
+
+        String url = url(RestconfProbeBatcher.PROBE_RESOURCE).replace("http:", "https:");
+        CompletableFuture<Boolean> probe = batcher.probe(info(true), url);
+        CompletableFuture<String> content = batcher.get(info(true), url);
+        CompletableFuture<Boolean> edit = batcher.patch(info(true), url, "{}");
+
+        assertTrue(probe.isDone() && content.isDone() && edit.isDone());
+        assertFalse(result(probe));
+        assertNull(result(content));
+        assertFalse(result(edit));
+        assertEquals(0, batcher.getPendingCount());
+        assertEquals(0, batcher.getInFlightCount());
+    }
+
+    @Test
+    public void stoppedBatcherFails() throws Exception {
+        batcher = new RestconfProbeBatcher(timer, (deviceId, task) -> task.run(), BATCH_WINDOW_MS,
+                RestconfProbeBatcher.DEFAULT_MAX_IN_FLIGHT);
+
+        assertFalse(result(batcher.probe(info(false), url(RestconfProbeBatcher.PROBE_RESOURCE))));
+
+        batcher.start();
+        CompletableFuture<Boolean> pending = batcher.probe(info(false), url(RestconfProbeBatcher.PROBE_RESOURCE));
+        batcher.stop();
+
+        assertFalse(result(pending));
+        assertEquals(0, batcher.getPendingCount());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Timed out waiting for condition");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.restconf.ctl;
+
+import io.netty.util.HashedWheelTimer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the asynchronous reachability prober.
+ */
+public class RestconfReachabilityProberTest {
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final long RESULT_TTL_MS = 200;
+    private static final DeviceId DEVICE = DeviceId.deviceId("restconf:127.0.0.1:8080");
+
+    private HashedWheelTimer timer;
+    private RestconfReachabilityProber prober;
+    private ServerSocket server;
+    private final List<SocketChannel> backlog = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+        prober = new RestconfReachabilityProber(timer, RESULT_TTL_MS);
+        prober.start();
+        server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        prober.stop();
+        timer.stop();
+        server.close();
+        for (SocketChannel channel : backlog) {
+            channel.close();
+        }
+    }
+
+    private InetSocketAddress serverAddress() {
+        return (InetSocketAddress) server.getLocalSocketAddress();
+    }
+
+    private static boolean result(CompletableFuture<Boolean> probe) throws Exception {
+        return probe.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void listeningPortReachable() throws Exception {
+        assertTrue(result(prober.probe(DEVICE, serverAddress(), 1000)));
+    }
+
+    @Test
+    public void closedPortUnreachable() throws Exception {
+        InetSocketAddress address = serverAddress();
+
+        server.close();
+        assertFalse(result(prober.probe(DEVICE, address, 1000)));
+    }
+
+    @Test
+    public void connectTimesOut() throws Exception {
+        // A listener whose accept backlog is full leaves new connects pending
+
+        for (int index = 0; index < 4; index++) {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.connect(serverAddress());
+            backlog.add(channel);
+        }
+        Thread.sleep(100);
+
+        long start = System.nanoTime();
+        CompletableFuture<Boolean> probe = prober.probe(DEVICE, serverAddress(), 200);
+
+        assertSame(probe, prober.probe(DEVICE, serverAddress(), 200));
+        assertFalse(result(probe));
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Timed out after " + elapsedMs + " mS", elapsedMs >= 150 && elapsedMs < 5000);
+    }
+
+    @Test
+    public void resultCached() throws Exception {
+        // Never probed, the first query starts a probe in the background
+
+        assertFalse(prober.isReachable(DEVICE, serverAddress(), 1000));
+        await(() -> prober.isReachable(DEVICE, serverAddress(), 1000));
+
+        // A stale result is still answered while a new probe runs
+
+        InetSocketAddress address = serverAddress();
+        server.close();
+        assertTrue(prober.isReachable(DEVICE, address, 1000));
+
+        Thread.sleep(RESULT_TTL_MS * 2);
+        await(() -> !prober.isReachable(DEVICE, address, 1000));
+    }
+
+    @Test
+    public void invalidateDropsResult() throws Exception {
+        assertTrue(result(prober.probe(DEVICE, serverAddress(), 1000)));
+        assertTrue(prober.isReachable(DEVICE, serverAddress(), 1000));
+
+        prober.invalidate(DEVICE);
+        server.close();
+        assertFalse(prober.isReachable(DEVICE, serverAddress(), 1000));
+    }
+
+    @Test
+    public void stoppedProberUnreachable() throws Exception {
+        prober.stop();
+        assertFalse(result(prober.probe(DEVICE, serverAddress(), 1000)));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Timed out waiting for condition");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
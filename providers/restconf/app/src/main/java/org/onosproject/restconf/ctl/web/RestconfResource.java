@@ -16,9 +16,13 @@
 package org.onosproject.restconf.ctl.web;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.onlab.packet.MacAddress;
 import org.onosproject.rest.AbstractWebResource;
+import org.onosproject.restconf.RestconfController;
+import org.onosproject.restconf.RestconfDevice;
+import org.onosproject.restconf.RestconfDeviceState;
 import org.slf4j.Logger;
 
 import javax.ws.rs.DELETE;
@@ -27,6 +31,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.io.InputStream;
@@ -99,21 +104,60 @@ public class RestconfResource extends AbstractWebResource {
     /**
      * Query RESTConf devices
      *
-     * @return IP Address map
+     * @param stateName optional device state (IDLE, ACTIVE, FAILED, ...) to filter on
+     * @return per-state device counts and the list of matching devices, or bad request
+     * listing the valid state names if the state is not known
      */
     @GET
     @Path("list")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response deviceGetNotification() {
+    public Response deviceGetNotification(@QueryParam("state") String stateName) {
 
         log.info("Received Device list request");
 
-        //RESTManager restService = get(RESTManager.class);
-        // TODO Get a list of devices
-        //List<RestconfDeviceEntry> list = restService.getAccessPoints();
+        int filter = -1;
+
+        if (stateName != null) {
+            for (int state = 0; state < RestconfDeviceState.NUM_STATES; state++) {
+                if (RestconfDeviceState.toString(state).equalsIgnoreCase(stateName)) {
+                    filter = state;
+                }
+            }
+            if (filter < 0) {
+                ObjectNode error = new ObjectMapper().createObjectNode();
+                ArrayNode states = error.put("error", "Unknown device state '" + stateName + "'")
+                        .putArray("states");
+
+                for (int state = 0; state < RestconfDeviceState.NUM_STATES; state++) {
+                    states.add(RestconfDeviceState.toString(state));
+                }
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(error.toString())
+                        .build();
+            }
+        }
+        RestconfController controller = get(RestconfController.class);
         ObjectNode result = new ObjectMapper().createObjectNode();
-        //result.set("list", new ESTConfDeviceCodec().encode(list, this));
+        ObjectNode counts = result.putObject("counts");
+        ArrayNode list = result.putArray("list");
+
+        for (int state = 0; state < RestconfDeviceState.NUM_STATES; state++) {
+            counts.put(RestconfDeviceState.toString(state), controller.getDeviceCount(state));
+        }
+        if (filter >= 0) {
+            // Only walk the devices in the requested state
 
+            int state = filter;
+            controller.getDeviceIds(state).forEach(id -> list.addObject()
+                    .put("id", id.toString())
+                    .put("state", RestconfDeviceState.toString(state)));
+        } else {
+            for (RestconfDevice device : controller.getDevices()) {
+                list.addObject()
+                        .put("id", device.getDeviceInfo().getDeviceId().toString())
+                        .put("state", RestconfDeviceState.toString(device.getState()));
+            }
+        }
         return ok(result.toString()).build();
     }
     // TODO quite a few other operations and URIs will be needed for this application
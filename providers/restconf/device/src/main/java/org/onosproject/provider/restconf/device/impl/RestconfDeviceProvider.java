@@ -22,6 +22,7 @@ import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
+import org.onlab.metrics.MetricsService;
 import org.onlab.packet.ChassisId;
 import org.onlab.packet.IpAddress;
 import org.onlab.util.SharedScheduledExecutors;
@@ -47,12 +48,28 @@ import org.onosproject.restconf.*;
 import org.slf4j.Logger;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.net.config.basics.SubjectFactories.APP_SUBJECT_FACTORY;
@@ -94,15 +111,23 @@ public class RestconfDeviceProvider extends AbstractProvider
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ClusterService clusterService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
     // TODO:Keep this?  -> protected Map<DeviceId, RESTConfDevice> restconfDeviceMap = new ConcurrentHashMap<DeviceId, RESTConfDevice>();
 
     private static final String APP_NAME = "org.onosproject.restconf";
     private static final String SCHEME_NAME = "restconf";
+    private static final String DRIVER_NAME = "restconf";
     private static final String DEVICE_PROVIDER_PACKAGE = "org.onosproject.restconf.provider.device";
-    private static final String UNKNOWN = "unknown";
+    private static final String IPADDRESS = "ipaddress";
+    private static final String POLL_RESOURCE =
+            "/data/ietf-interfaces:interfaces-state?fields=interface(name;oper-status;admin-status)";
+    // TODO: Any other custom annotations?
 
     private DeviceProviderService providerService;
     private RestconfDeviceListener innerNodeListener = new InnerRestconfDeviceListener();
+    private RestconfDeviceStateListener stateListener = new InnerRestconfStateListener();
 
     private InternalDeviceListener deviceListener = new InternalDeviceListener();
 
@@ -121,21 +146,80 @@ public class RestconfDeviceProvider extends AbstractProvider
     private ApplicationId appId;
     private NodeId localNodeId;
 
-    public static int connectionTimeout = RestconfProviderConfig.DEFAULT_CONNECTION_TIMEOUT;
-    public static int eventInterval = RestconfProviderConfig.DEFAULT_EVENT_INTERVAL;
-    public static int numWorkers = RestconfProviderConfig.DEFAULT_WORKER_THREADS;
+    // Starts with the default number of workers and is resized in place whenever the
+    // configuration changes. Queued and in-flight work is unaffected by a resize.
 
-    // Probably want to create with just '1', then after reading config (or notify on config update)
-    // the number can be increased/decreased as appropriate
-    private ExecutorService executor =
-            Executors.newFixedThreadPool(numWorkers,
+    private final ThreadPoolExecutor executor =
+            new ThreadPoolExecutor(RestconfProviderConfig.DEFAULT_WORKER_THREADS,
+                    RestconfProviderConfig.DEFAULT_WORKER_THREADS,
+                    0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
                     groupedThreads("onos/restconfdeviceprovider", "device-installer-%d", log));
 
+    // In 'virtual' execution mode, per-device blocking work runs on one virtual thread
+    // per operation instead of on the worker pool.
+
+    private volatile RestconfExecutionMode executionMode = RestconfExecutionMode.PLATFORM;
+    private volatile ExecutorService virtualExecutor;
+
+    // Per-device install work (device key, deviceConnected, state machine start) is
+    // fanned out across the worker pool.  At most one drain task per worker thread is
+    // outstanding so a large onboarding does not flood the pool queue.
+
+    private static final int INSTALL_PROGRESS_INTERVAL = 1000;
+
+    private final Queue<DeviceId> pendingInstalls = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger installWorkers = new AtomicInteger();
+    private final AtomicInteger installsQueued = new AtomicInteger();
+    private final AtomicInteger installsDone = new AtomicInteger();
+
     //private HashMap<String, ScheduledFuture<?>> executorResults = Maps.newHashMap();
     //private ScheduledExecutorService executor;
 
+    // Device snapshots allow a warm restart to skip discovery of devices that were
+    // ACTIVE when we stopped.  Saved on deactivate and periodically in case of a crash.
+
+    private static final int SNAPSHOT_INTERVAL = 60;   // seconds
+
+    private final RestconfSnapshotStore snapshotStore = new RestconfSnapshotStore();
+    private final Map<DeviceId, RestconfDeviceSnapshot> warmStartSnapshots = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> snapshotTask;
+
+    // Periodic per-device refresh, driven by the configured event interval
+
+    private final RestconfPollScheduler pollScheduler =
+            new RestconfPollScheduler(this::pollDevice, this::executeDeviceTask,
+                    TimeUnit.SECONDS.toMillis(RestconfProviderConfig.DEFAULT_EVENT_INTERVAL));
+
+    // Ports last reported to the core, so a refresh only sends the ports that changed
+
+    private final RestconfPortTracker portTracker = new RestconfPortTracker();
+
+    // Port enable/disable requests for a device are merged into a single edit
+
+    private final RestconfPortStateBatcher portStateBatcher =
+            new RestconfPortStateBatcher((deviceId, content) ->
+                    controller.patchResource(deviceId, RestconfPortStateBatcher.INTERFACES, content),
+                    RestconfPortStateBatcher.DEFAULT_WINDOW_MS);
+
+    // Interface state notifications are reported as port status changes as they
+    // arrive, and polling of the sending device backs off to a reconcile interval
+
+    private final RestconfPortEventTranslator portEventTranslator =
+            new RestconfPortEventTranslator(portTracker, this::reportPortStatus,
+                    deviceId -> pollScheduler.setEventDriven(deviceId, true));
+
+    // Device configuration most recently applied, so that a configuration update only
+    // acts on the devices that were added, removed or changed.
+
+    private Map<DeviceId, RestconfDeviceInfo> configuredDevices = Collections.emptyMap();
+
     private boolean active;
 
+    // In warm standby mode, STANDBY nodes keep their device sessions (but do not poll)
+    // so that a promotion to MASTER does not need a full rediscovery
+
+    private volatile boolean warmStandby = RestconfProviderConfig.DEFAULT_WARM_STANDBY;
+
     /**
      * Create a device provider for the RESTCONF protocol
      */
@@ -160,11 +244,20 @@ public class RestconfDeviceProvider extends AbstractProvider
             cfgService.addListener(configListener);
 
             controller.addDeviceListener(innerNodeListener);
+            controller.addStateListener(stateListener);
+            controller.addOutputListener(portEventTranslator);
             deviceService.addListener(deviceListener);
             //controller.getDevices().forEach(device -> device.addEventListener(deviceListener));
 
             localNodeId = clusterService.getLocalNode().id();
 
+            warmStartSnapshots.putAll(snapshotStore.read());
+            snapshotTask = SharedScheduledExecutors.getSingleThreadExecutor()
+                    .scheduleAtFixedRate(this::saveSnapshot,
+                    SNAPSHOT_INTERVAL, SNAPSHOT_INTERVAL, TimeUnit.SECONDS);
+            pollScheduler.registerMetrics(metricsService);
+            pollScheduler.start(controller.getTimer());
+
             // Perform device restore/load on a separate thread since connectivity on a per-
             // device basis can take times (or may incur timeouts)
 
@@ -184,12 +277,26 @@ public class RestconfDeviceProvider extends AbstractProvider
         deviceService.removeListener(deviceListener);
         active = false;
 
-        controller.getDevices().forEach(device -> {
-            DeviceId id = device.getDeviceInfo().getDeviceId();
-            deviceKeyAdminService.removeKey(DeviceKeyId.deviceKeyId(id.toString()));
-            controller.disconnectDevice(id, true);
-        });
+        if (snapshotTask != null) {
+            snapshotTask.cancel(false);
+            snapshotTask = null;
+        }
+        pollScheduler.stop();
+        pollScheduler.unregisterMetrics();
+        saveSnapshot();
+        warmStartSnapshots.clear();
+
+        if (virtualExecutor != null) {
+            virtualExecutor.shutdown();
+        }
+
+        List<DeviceId> deviceIds = new ArrayList<>(controller.getDevicesMap().keySet());
+
+        deviceIds.forEach(id -> deviceKeyAdminService.removeKey(DeviceKeyId.deviceKeyId(id.toString())));
+        controller.disconnectDevices(deviceIds, true);
         controller.removeDeviceListener(innerNodeListener);
+        controller.removeStateListener(stateListener);
+        controller.removeOutputListener(portEventTranslator);
         deviceService.removeListener(deviceListener);
         providerRegistry.unregister(this);
         providerService = null;
@@ -210,8 +317,132 @@ public class RestconfDeviceProvider extends AbstractProvider
      */
     @Override
     public void triggerProbe(DeviceId deviceId) {
-        // TODO: This will be implemented later.
-        log.info("Triggering probe on device {}", deviceId);
+        log.debug("Triggering probe on device {}", deviceId);
+
+        // Probes are coalesced and run asynchronously by the controller, only the
+        // result is handled here
+
+        controller.probeDevice(deviceId).whenComplete((reachable, error) ->
+                handleProbeResult(deviceId, error == null && reachable));
+    }
+
+    /**
+     * Report the result of a device probe to the core
+     *
+     * @param deviceId  device identifier
+     * @param reachable true if the device answered the probe
+     */
+    private void handleProbeResult(DeviceId deviceId, boolean reachable) {
+        DeviceProviderService service = providerService;
+
+        if (service == null) {
+            return;
+        }
+        if (!reachable) {
+            log.info("Probe of device {} failed", deviceId);
+
+            if (deviceService.getDevice(deviceId) != null) {
+                service.deviceDisconnected(deviceId);
+            }
+        } else if (deviceService.getDevice(deviceId) == null) {
+            // Reachable but unknown to the core, reinstall it
+
+            scheduleInstall(deviceId);
+        }
+    }
+
+    /**
+     * Periodic refresh of a device this node is master for
+     *
+     * @param deviceId device identifier
+     *
+     * @return future completed with a fingerprint of the device's data, null on failure
+     */
+    private CompletableFuture<String> pollDevice(DeviceId deviceId) {
+        if (!active || !mastershipService.isLocalMaster(deviceId)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // The fingerprint of the device's interface state lets the scheduler adapt how
+        // often the device is polled. Counters are left out of it, they change on every
+        // poll and would hold every device at the minimum interval, so statistics are
+        // collected on each successful poll instead. A failed poll means the device is
+        // not reachable.
+
+        return controller.pollResource(deviceId, POLL_RESOURCE)
+                .whenComplete((fingerprint, error) -> {
+                    boolean reachable = error == null && fingerprint != null;
+
+                    handleProbeResult(deviceId, reachable);
+
+                    if (!reachable) {
+                        return;
+                    }
+                    boolean changed = portTracker.fingerprintChanged(deviceId, fingerprint);
+
+                    executeDeviceTask(() -> {
+                        if (changed) {
+                            discoverPorts(deviceId);
+                        }
+                        collectPortStatistics(deviceId);
+                    });
+                });
+    }
+
+    /**
+     * Discover the ports of a device through its driver and report any that were
+     * added, removed or changed since the last discovery
+     *
+     * @param deviceId device identifier
+     */
+    private void discoverPorts(DeviceId deviceId) {
+        DeviceProviderService service = providerService;
+        Device device = deviceService.getDevice(deviceId);
+
+        if ((service == null) || (device == null) || !device.is(DeviceDescriptionDiscovery.class)) {
+            return;
+        }
+        List<PortDescription> ports = device.as(DeviceDescriptionDiscovery.class).discoverPortDetails();
+
+        portTracker.refresh(deviceId, ports, service);
+    }
+
+    /**
+     * Report a change of port state learned from a device notification
+     *
+     * @param deviceId device identifier
+     * @param port     updated port description
+     */
+    private void reportPortStatus(DeviceId deviceId, PortDescription port) {
+        DeviceProviderService service = providerService;
+
+        if ((service != null) && mastershipService.isLocalMaster(deviceId)) {
+            service.portStatusChanged(deviceId, port);
+        }
+    }
+
+    /**
+     * Collect the port statistics of a device and report them if any counter changed
+     * since the last collection
+     *
+     * @param deviceId device identifier
+     */
+    private void collectPortStatistics(DeviceId deviceId) {
+        if (providerService == null) {
+            return;
+        }
+        RestconfPortStatistics.fetch(controller, deviceId).whenComplete((statistics, error) -> {
+            DeviceProviderService service = providerService;
+
+            if (error != null) {
+                log.warn("Unable to read interface statistics of {}: {}", deviceId, error.toString());
+
+            } else if (statistics == null) {
+                log.debug("Unable to read interface statistics of {}", deviceId);
+
+            } else if ((service != null) && (deviceService.getDevice(deviceId) != null)) {
+                portTracker.refreshStatistics(deviceId, statistics, service);
+            }
+        });
     }
 
     /**
@@ -226,29 +457,20 @@ public class RestconfDeviceProvider extends AbstractProvider
         if (active) {
             switch (newRole) {
                 case MASTER:
-                    try {
-                        RestconfDevice device = controller.getDevice(deviceId);
+                    // Reachability check and connect may block, keep them off the
+                    // core's thread
 
-                        if ((device != null) && isReachable(deviceId)) {
-                            controller.connectDevice(deviceId);
-
-                            log.debug("Accepting mastership role change to {} for device {}",
-                                    newRole, deviceId);
-
-                            providerService.receivedRoleReply(deviceId, newRole,
-                                    MastershipRole.MASTER);
-                        }
-                    } catch (Exception e) {
-                        if (deviceService.getDevice(deviceId) != null) {
-                            providerService.deviceDisconnected(deviceId);
-                        }
-                        deviceKeyAdminService.removeKey(DeviceKeyId.deviceKeyId(deviceId.toString()));
-                        log.warn("Can't connect to RESTCONF device {}: {}", deviceId, e);
-                    }
+                    executeDeviceTask(() -> acceptMastership(deviceId, newRole));
                     break;
 
                 case STANDBY:
-                    controller.disconnectDevice(deviceId, false);
+                    if (warmStandby) {
+                        // Keep (or bring up) the session, but leave polling to the master
+
+                        executeDeviceTask(() -> keepWarm(deviceId));
+                    } else {
+                        controller.disconnectDevice(deviceId, false);
+                    }
                     providerService.receivedRoleReply(deviceId, newRole, MastershipRole.STANDBY);
                     break;
 
@@ -262,6 +484,89 @@ public class RestconfDeviceProvider extends AbstractProvider
         }
     }
 
+    /**
+     * Connect to a device this node has become MASTER for and acknowledge the role
+     *
+     * @param deviceId device identifier
+     * @param newRole  newly determined mastership role
+     */
+    private void acceptMastership(DeviceId deviceId, MastershipRole newRole) {
+        RestconfDevice device = controller.getDevice(deviceId);
+
+        if (device == null) {
+            return;
+        }
+        if (warmStandby && (device.getState() == RestconfDeviceState.ACTIVE)) {
+            // Session was kept warm while STANDBY, just take over polling
+
+            log.debug("Promoting warm standby device {} to {}", deviceId, newRole);
+
+            providerService.receivedRoleReply(deviceId, newRole, MastershipRole.MASTER);
+            pollScheduler.pollSoon(deviceId);
+
+        } else if (isReachable(deviceId)) {
+            connectMaster(deviceId, newRole);
+
+        } else {
+            // No recent probe result, possibly never probed at all. Ask the device
+            // before letting the role change go unanswered.
+
+            controller.probeDevice(deviceId).thenAccept(reachable -> {
+                if (!reachable) {
+                    log.debug("Device {} is not reachable, not accepting {}", deviceId, newRole);
+
+                } else if (mastershipService.isLocalMaster(deviceId)) {
+                    executeDeviceTask(() -> connectMaster(deviceId, newRole));
+                }
+            });
+        }
+    }
+
+    /**
+     * Connect to a reachable device and acknowledge the MASTER role
+     *
+     * @param deviceId device identifier
+     * @param newRole  newly determined mastership role
+     */
+    private void connectMaster(DeviceId deviceId, MastershipRole newRole) {
+        try {
+            controller.connectDevice(deviceId);
+
+            log.debug("Accepting mastership role change to {} for device {}",
+                    newRole, deviceId);
+
+            providerService.receivedRoleReply(deviceId, newRole,
+                    MastershipRole.MASTER);
+
+        } catch (Exception e) {
+            if (deviceService.getDevice(deviceId) != null) {
+                providerService.deviceDisconnected(deviceId);
+            }
+            deviceKeyAdminService.removeKey(DeviceKeyId.deviceKeyId(deviceId.toString()));
+            log.warn("Can't connect to RESTCONF device {}: {}", deviceId, e);
+        }
+    }
+
+    /**
+     * Keep a session to a device this node is STANDBY for.  Polls are only issued by
+     * the master, so a warm session costs no device traffic beyond its connection.
+     *
+     * @param deviceId device identifier
+     */
+    private void keepWarm(DeviceId deviceId) {
+        RestconfDevice device = controller.getDevice(deviceId);
+
+        if ((device == null) || (device.getState() == RestconfDeviceState.ACTIVE)) {
+            return;
+        }
+        try {
+            controller.connectDevice(deviceId);
+
+        } catch (RestconfException e) {
+            log.debug("Unable to keep warm standby session to {}: {}", deviceId, e.toString());
+        }
+    }
+
     /**
      * Checks the reachability (connectivity) of a device from this provider.
      *
@@ -290,26 +595,245 @@ public class RestconfDeviceProvider extends AbstractProvider
      */
     @Override
     public void changePortState(DeviceId deviceId, PortNumber portNumber, boolean enable) {
-        // TODO: Implement this
+        String trackedName = portTracker.portName(deviceId, portNumber);
+        String portName = (trackedName != null) ? trackedName :
+                (portNumber.hasName() ? portNumber.name() : null);
+
+        if (portName == null) {
+            log.warn("Unable to change state of unknown port {} on device {}", portNumber, deviceId);
+            return;
+        }
+        // Requests for the same device are merged into one edit; the port's new state is
+        // reported by the next poll or interface notification once the device applies it
+
+        portStateBatcher.submit(deviceId, portName, enable).thenAccept(accepted -> {
+            if (accepted) {
+                log.debug("Port {} of {} {}", portName, deviceId, enable ? "enabled" : "disabled");
+            } else {
+                log.warn("Unable to {} port {} of {}", enable ? "enable" : "disable", portName, deviceId);
+            }
+        });
     }
 
-    private void connectInitialDevices() {
-        // TODO: Do we want to handle devices restored from persistent storage separately?
+    /**
+     * Resize the provider worker pool.  Tasks already queued or running are kept.
+     *
+     * @param numThreads new number of worker threads
+     */
+    private synchronized void setWorkerThreads(int numThreads) {
+        if (numThreads <= 0 || numThreads == executor.getMaximumPoolSize()) {
+            return;
+        }
+        // Core size may never exceed the maximum, so order the updates accordingly
+
+        if (numThreads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(numThreads);
+            executor.setCorePoolSize(numThreads);
+        } else {
+            executor.setCorePoolSize(numThreads);
+            executor.setMaximumPoolSize(numThreads);
+        }
+        log.info("Provider worker threads resized to {}", numThreads);
+    }
+
+    /**
+     * Change how per-device blocking work is executed
+     *
+     * @param mode new execution mode
+     */
+    private synchronized void setExecutionMode(RestconfExecutionMode mode) {
+        if (mode == executionMode) {
+            return;
+        }
+        ExecutorService previous = virtualExecutor;
+
+        virtualExecutor = (mode == RestconfExecutionMode.VIRTUAL) ?
+                mode.newExecutor(RestconfProviderConfig.DEFAULT_WORKER_THREADS,
+                        groupedThreads("onos/restconfdeviceprovider", "device-op-%d", log)) :
+                null;
+        executionMode = mode;
+
+        if (previous != null) {
+            previous.shutdown();
+        }
+        log.info("Provider execution mode: {}", mode);
+    }
+
+    /**
+     * Run a blocking per-device task on a virtual thread or the worker pool depending
+     * on the execution mode
+     *
+     * @param task task to run
+     */
+    private void executeDeviceTask(Runnable task) {
+        ExecutorService virtual = virtualExecutor;
+
+        if (virtual != null && !virtual.isShutdown()) {
+            virtual.execute(task);
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    /**
+     * Queue a newly added device for installation into the core
+     *
+     * @param deviceId device identifier
+     */
+    private void scheduleInstall(DeviceId deviceId) {
+        pendingInstalls.add(deviceId);
+        installsQueued.incrementAndGet();
 
-        for (RestconfDevice device : controller.getDevices()) {
+        if (claimInstallWorker()) {
             try {
-                innerNodeListener.deviceAdded(device.getDeviceInfo().getDeviceId());
+                executeDeviceTask(this::drainInstalls);
+            } catch (RejectedExecutionException e) {
+                installWorkers.decrementAndGet();
+                log.warn("Unable to schedule device install: {}", e.toString());
+            }
+        }
+    }
 
+    /**
+     * Claim one of the install worker slots, bounded by the worker pool size
+     *
+     * @return true if a slot was claimed
+     */
+    private boolean claimInstallWorker() {
+        int workers;
+
+        while ((workers = installWorkers.get()) < executor.getMaximumPoolSize()) {
+            if (installWorkers.compareAndSet(workers, workers + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-            } catch (Exception e) {
-                log.warn("Failed initially adding {} : {}",
-                        device.getDeviceInfo().getDeviceId().toString(), e.getMessage());
-                log.debug("Error details:", e);
+    /**
+     * Install queued devices until none remain
+     */
+    private void drainInstalls() {
+        do {
+            DeviceId deviceId;
+
+            while ((deviceId = pendingInstalls.poll()) != null) {
+                try {
+                    installDevice(deviceId);
+                } catch (Exception e) {
+                    log.warn("Failed installing {} : {}", deviceId, e.getMessage());
+                    log.debug("Error details:", e);
+                }
+                int done = installsDone.incrementAndGet();
+                int queued = installsQueued.get();
 
-                // disconnect to trigger device-add later
-                // TODO: device.disconnectDevice();
+                if (done % INSTALL_PROGRESS_INTERVAL == 0 || done == queued) {
+                    log.info("Installed {} of {} devices", done, queued);
+                }
             }
+            installWorkers.decrementAndGet();
+
+            // Re-check in case a device was queued after our last poll but saw all
+            // worker slots taken
+        } while (!pendingInstalls.isEmpty() && claimInstallWorker());
+    }
+
+    /**
+     * Install a device, announce it to the core and start its state machine.
+     *
+     * @param did device identifier
+     */
+    private void installDevice(DeviceId did) {
+        RestconfDevice device = controller.getDevice(did);
+
+        if ((providerService == null) || (device == null)) {
+            return;
+        }
+        RestconfDeviceInfo info = device.getDeviceInfo();
+
+        deviceKeyAdminService.addKey(
+                DeviceKey.createDeviceKeyUsingUsernamePassword(
+                        DeviceKeyId.deviceKeyId(did.toString()),
+                        null, info.getUserName(), info.getPassword()));
+        // TODO: can we extend the device key to also contain an X509 certificate
+        //       or other credentials we may need for connectivity?
+
+        pollScheduler.add(did);
+
+        if (device.getState() == RestconfDeviceState.ACTIVE) {
+            connectToCore(did);     // Already up (reinstalled after the core lost it)
+            return;
         }
+        // Initiate device State Machine startup, skipping discovery if we have
+        // a snapshot from a previous run
+
+        RestconfDeviceSnapshot snapshot = warmStartSnapshots.remove(did);
+
+        if (snapshot != null) {
+            device.resume(snapshot);
+        } else {
+            device.start();
+        }
+    }
+
+    /**
+     * Signal the core that a device has been discovered/connected. This should result
+     * in a call to roleChanged to accept mastership for this device.  The device is
+     * described with the identity it reported while it was populated, so it is
+     * signalled once, when it becomes ACTIVE.
+     *
+     * @param did device identifier
+     */
+    private void connectToCore(DeviceId did) {
+        DeviceProviderService service = providerService;
+        RestconfDevice device = controller.getDevice(did);
+
+        if (!active || (service == null) || (device == null)) {
+            return;
+        }
+        RestconfDeviceIdentity identity = device.getIdentity();
+        ChassisId cid = identity.chassisId(did);
+        IpAddress ipAddress = device.getDeviceInfo().getIpAddress();
+
+        // TODO: After discovery, can add the MANAGEMENT_ADDRESS annotation?
+
+        SparseAnnotations annotations = DefaultAnnotations.builder()
+                .set(IPADDRESS, ipAddress.toString())
+                .set(AnnotationKeys.PROTOCOL, SCHEME_NAME.toUpperCase())
+                .set(AnnotationKeys.CHANNEL_ID, cid.toString())
+                .set(AnnotationKeys.DRIVER, DRIVER_NAME)
+                .build();
+
+        DeviceDescription deviceDescription = new DefaultDeviceDescription(
+                did.uri(),
+                Device.Type.SWITCH, // TODO: Change after discovery?
+                identity.manufacturer(),
+                identity.hwVersion(),
+                identity.swVersion(),
+                identity.serialNumber(),
+                cid,
+                annotations);
+
+        service.deviceConnected(did, deviceDescription);
+    }
+
+    /**
+     * Save a snapshot of all devices for use on the next warm restart
+     */
+    private void saveSnapshot() {
+        List<RestconfDeviceSnapshot> snapshots = controller.getDevicesMap().values().stream()
+                .map(RestconfDevice::getSnapshot)
+                .collect(Collectors.toList());
+
+        snapshotStore.write(snapshots);
+    }
+
+    private void connectInitialDevices() {
+        // TODO: Do we want to handle devices restored from persistent storage separately?
+
+        // Installs run in parallel on the worker pool; failures are logged per device
+
+        controller.getDevicesMap().keySet().forEach(this::scheduleInstall);
     }
 
     private void connectDevices() {
@@ -319,27 +843,122 @@ public class RestconfDeviceProvider extends AbstractProvider
 
         // merge any new devices in from configuration file
 
-        RestconfProviderConfig cfg = cfgService.getConfig(appId, RestconfProviderConfig.class);
+        applyConfig(cfgService.getConfig(appId, RestconfProviderConfig.class));
+    }
 
+    /**
+     * Apply the provider configuration.  Only devices that were added, removed or
+     * changed since the configuration was last applied are acted on.
+     *
+     * @param cfg provider configuration
+     */
+    private void applyConfig(RestconfProviderConfig cfg) {
         if (cfg != null) {
             try {
-                for (RestconfDeviceInfo devInfo : cfg.getDeviceInfo().values()) {
-                    DeviceId id = devInfo.getDeviceId();
-                    RestconfDevice device = controller.getDevice(id);
+                setWorkerThreads(cfg.getNumberOfWorkerThreads());
+                controller.setWorkerThreads(cfg.getNumberOfWorkerThreads());
+                setExecutionMode(cfg.getExecutionMode());
+                controller.setExecutionMode(cfg.getExecutionMode());
+                warmStandby = cfg.getWarmStandby();
+                pollScheduler.setInterval(TimeUnit.SECONDS.toMillis(cfg.getEventInterval()),
+                        TimeUnit.SECONDS.toMillis(cfg.getMinEventInterval()),
+                        TimeUnit.SECONDS.toMillis(cfg.getMaxEventInterval()));
+
+                applyDeviceConfig(cfg.getDeviceInfoIterator());
+
+            } catch (ConfigException | IllegalArgumentException e) {
+                log.error("Cannot read config error " + e);
+            }
+        }
+    }
 
-                    if (device != null) {
-                        // If new information, may need to kick device back to DISCOVERY
-                        // state.
+    /**
+     * Compare the configured devices with those last applied and act on the difference.
+     * The configuration is streamed straight into the map of configured devices.
+     *
+     * @param devices devices in the configuration
+     *
+     * @throws IllegalArgumentException if a device entry is not valid, nothing is
+     *                                  applied in that case
+     */
+    private synchronized void applyDeviceConfig(Iterator<RestconfDeviceInfo> devices) {
+        Map<DeviceId, RestconfDeviceInfo> updated = new HashMap<>();
 
-                        innerNodeListener.deviceModified(id, devInfo);
-                    } else {
-                        // Create the device and then signal event
-                        //innerNodeListener.deviceAdded(controller.createDevice(id));
-                    }
-                }
-            } catch (ConfigException e) {
-                log.error("Cannot read config error " + e);
+        devices.forEachRemaining(info -> updated.put(info.getDeviceId(), info));
+
+        List<RestconfDeviceInfo> added = new ArrayList<>();
+        List<RestconfDeviceInfo> changed = new ArrayList<>();
+        List<DeviceId> removed = configuredDevices.keySet().stream()
+                .filter(id -> !updated.containsKey(id))
+                .collect(Collectors.toList());
+
+        for (RestconfDeviceInfo info : updated.values()) {
+            DeviceId id = info.getDeviceId();
+            RestconfDeviceInfo previous = configuredDevices.get(id);
+
+            if (previous == null) {
+                added.add(info);
+                continue;
+            }
+            Set<RestconfDeviceInfo.Field> fields = previous.changedFields(info);
+
+            if (fields.isEmpty()) {
+                continue;
+            }
+            RestconfDevice device = controller.getDevice(id);
+
+            if (device != null && fields.equals(EnumSet.of(RestconfDeviceInfo.Field.ADMIN_STATE))) {
+                // Admin state can be changed in place without a new session, the
+                // device's state machine takes it INACTIVE or back to ACTIVE
+
+                device.setAdminState(info.getAdminStateUp());
+                continue;
             }
+            log.debug("Configuration of {} changed: {}", id, fields);
+            changed.add(info);
+        }
+        configuredDevices = updated;
+
+        log.info("Device configuration: {} added, {} changed, {} removed",
+                added.size(), changed.size(), removed.size());
+
+        if (!removed.isEmpty()) {
+            controller.removeDevices(removed)
+                    .whenComplete((results, error) -> logBulkResult("remove", results, error));
+        }
+        if (!changed.isEmpty()) {
+            // Changed devices are replaced so that they reconnect with the new settings
+
+            List<DeviceId> changedIds = changed.stream()
+                    .map(RestconfDeviceInfo::getDeviceId)
+                    .collect(Collectors.toList());
+
+            controller.removeDevices(changedIds)
+                    .thenCompose(results -> controller.connectDevices(changed))
+                    .whenComplete((results, error) -> logBulkResult("replace", results, error));
+        }
+        if (!added.isEmpty()) {
+            // The controller registers the devices in bulk and signals each one back
+            // to our device listener (added or modified) as it goes
+
+            controller.connectDevices(added)
+                    .whenComplete((results, error) -> logBulkResult("connect", results, error));
+        }
+    }
+
+    /**
+     * Log the outcome of a bulk device operation
+     *
+     * @param operation operation name
+     * @param results   per-device results
+     * @param error     failure, or null if the operation completed
+     */
+    private void logBulkResult(String operation, Map<DeviceId, Boolean> results, Throwable error) {
+        if (error != null) {
+            log.error("Bulk device {} failed: {}", operation, error.toString());
+        } else {
+            long succeeded = results.values().stream().filter(ok -> ok).count();
+            log.info("Bulk device {}: {} of {} devices succeeded", operation, succeeded, results.size());
         }
     }
 
@@ -351,7 +970,8 @@ public class RestconfDeviceProvider extends AbstractProvider
         public void event(DeviceEvent event) {
             if ((event.type() == DeviceEvent.Type.DEVICE_ADDED)) {
 
-                //executor.execute(() -> discoverPorts(event.subject().id()));
+                DeviceId deviceId = event.subject().id();
+                executeDeviceTask(() -> discoverPorts(deviceId));
 
             } else if ((event.type() == DeviceEvent.Type.DEVICE_REMOVED)) {
 
@@ -372,10 +992,30 @@ public class RestconfDeviceProvider extends AbstractProvider
         }
     }
 
-    private class InnerRestconfDeviceListener implements RestconfDeviceListener {
+    /**
+     * Listener for device state machine transitions, connects devices to the core once
+     * they have been discovered and populated (or resumed from a snapshot).  A device
+     * coming back from INACTIVE is already known to the core.
+     */
+    private class InnerRestconfStateListener implements RestconfDeviceStateListener {
+        @Override
+        public boolean isRelevant(RestconfDeviceStateEvent event) {
+            return event.getNewState() == RestconfDeviceState.ACTIVE
+                    && (event.getPreviousState() == RestconfDeviceState.POPULATE
+                    || event.getPreviousState() == RestconfDeviceState.IDLE);
+        }
+
+        @Override
+        public void event(RestconfDeviceStateEvent event) {
+            DeviceId did = event.subject();
+
+            // The core may block
 
-        private static final String IPADDRESS = "ipaddress";
-        // TODO: Any other custom annotations?
+            executeDeviceTask(() -> connectToCore(did));
+        }
+    }
+
+    private class InnerRestconfDeviceListener implements RestconfDeviceListener {
 
         /**
          * Notifies that the RESTCONF node was added.
@@ -384,56 +1024,12 @@ public class RestconfDeviceProvider extends AbstractProvider
          */
         @Override
         public void deviceAdded(DeviceId did) {
-            /**
-             * Notifies that the RESTCONF node was added.
-             *
-             * @param devInfo Device information
-             */
-            RestconfDevice device = null;       // TODO: look up device here
-            Preconditions.checkNotNull(device, "RESTCONF Device is null");
-
-            if ((providerService == null) && (controller.getDevice(did) != null)) {
-                return;
-            }
-            //TODO: ChassisId cid = new ChassisId(did..toLong());
-            ChassisId cid = new ChassisId(0x1234);   // TODO: Need to implement this
-            IpAddress ipAddress = device.getDeviceInfo().getIpAddress();
-
-            // TODO: After discovery, can add the MANAGEMENT_ADDRESS annotation?
-
-            SparseAnnotations annotations = DefaultAnnotations.builder()
-                    .set(IPADDRESS, ipAddress.toString())
-                    .set(AnnotationKeys.PROTOCOL, SCHEME_NAME.toUpperCase())
-                    .set(AnnotationKeys.CHANNEL_ID, cid.toString())
-                    .build();
-
-            DeviceDescription deviceDescription = new DefaultDeviceDescription(
-                    did.uri(),
-                    Device.Type.SWITCH, // TODO: Change after discovery?
-                    UNKNOWN,            // TODO: Change after discovery? manufacturer
-                    UNKNOWN,            // TODO: Change after discovery? hwVersion
-                    UNKNOWN,            // TODO: Change after discovery? swVersion
-                    UNKNOWN,            // TODO: Change after discovery? serialNumber
-                    cid,
-                    annotations);
-
-            RestconfDeviceInfo info = device.getDeviceInfo();
-
-            deviceKeyAdminService.addKey(
-                    DeviceKey.createDeviceKeyUsingUsernamePassword(
-                            DeviceKeyId.deviceKeyId(did.toString()),
-                            null, info.getUserName(), info.getPassword()));
-            // TODO: can we extend the device key to also contain an X509 certificate
-            //       or other credentials we may need for connectivity?
-
-            // Signal the core that a device has been discovered/connected. This should result
-            // in a call to roleChanged to accept mastership for this device
-
-            providerService.deviceConnected(did, deviceDescription);
+            Preconditions.checkNotNull(did, "Device ID is null");
 
-            // Initiate device State Machine startup
+            // Installing a device can block on the core, so hand it off to the
+            // worker pool rather than holding up further device events
 
-            device.start();
+            scheduleInstall(did);
         }
 
         /**
@@ -444,8 +1040,16 @@ public class RestconfDeviceProvider extends AbstractProvider
         @Override
         public void deviceRemoved(DeviceId id) {
             Preconditions.checkNotNull(id, "Device ID is null");
-            // TODO: DeviceId deviceId = nodeId.getDeviceId();
-            // TODO: providerService.deviceDisconnected(deviceId);
+
+            DeviceProviderService service = providerService;
+
+            pollScheduler.remove(id);
+            portTracker.remove(id);
+            deviceKeyAdminService.removeKey(DeviceKeyId.deviceKeyId(id.toString()));
+
+            if ((service != null) && (deviceService.getDevice(id) != null)) {
+                service.deviceDisconnected(id);
+            }
         }
 
         /**
@@ -513,15 +1117,7 @@ public class RestconfDeviceProvider extends AbstractProvider
             if (cfg == null) {
                 return;
             }
-            try {
-                RestconfDeviceProvider.connectionTimeout = cfg.getConnectionTimeout();
-                RestconfDeviceProvider.eventInterval = cfg.getEventInterval();
-
-            } catch (ConfigException e) {
-                log.error("Reconfigure Network: ConfigException during parameter read: {}",
-                        e.toString());
-            }
-            connectDevices();
+            applyConfig(cfg);
         }
     }
 }
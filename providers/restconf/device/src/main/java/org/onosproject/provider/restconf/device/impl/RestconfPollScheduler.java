@@ -0,0 +1,406 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.restconf.device.impl;
+
+import com.codahale.metrics.Gauge;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
+import org.onosproject.net.DeviceId;
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Fleet-wide scheduler for periodic per-device polling.
+ * <p>
+ * Devices are placed in time buckets of one tick and a single wakeup per tick on the
+ * controller's shared timer dispatches every device that is due, so polling N devices
+ * never needs N timeouts.
+ * A device's first poll is placed at a random offset within the interval and every
+ * later poll is jittered slightly so that devices do not synchronize into bursts.
+ * A device whose previous poll has not completed when it is next due is skipped
+ * for that round.
+ * <p>
+ * Each poll yields a fingerprint of the device's data.  A device whose data did not
+ * change since its last poll has its interval stretched, one whose data changed has
+ * it shortened, always within the configured bounds.  Devices that never change end
+ * up polled at the maximum interval and busy devices at the minimum.
+ * <p>
+ * A device that reports its own changes through notifications only needs an
+ * occasional reconcile poll and is held at the maximum interval.
+ */
+public class RestconfPollScheduler {
+    private final Logger log = getLogger(getClass());
+
+    static final long TICK_MS = 250;
+    private static final int JITTER_PERCENT = 5;
+    private static final String METRICS_COMPONENT = "RestconfDeviceProvider";
+    private static final String METRICS_FEATURE = "Polling";
+
+    private final Function<DeviceId, CompletableFuture<String>> pollAction;
+    private final Executor executor;
+    private volatile long intervalMs;           // Starting interval
+    private volatile long minIntervalMs;
+    private volatile long maxIntervalMs;
+
+    private final Map<DeviceId, PollState> devices = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Set<DeviceId>> buckets = new ConcurrentSkipListMap<>();
+    private Timer timer;
+    private Timeout tickTimeout;
+
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong changed = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong pollsAvoidedMilli = new AtomicLong();    // In 1/1000ths of a poll
+
+    private MetricsService metricsService;
+    private MetricsComponent metricsComponent;
+    private MetricsFeature metricsFeature;
+
+    /**
+     * Polling state of one device
+     */
+    private static final class PollState {
+        private final AtomicBoolean inFlight = new AtomicBoolean();
+        private volatile long intervalMs;
+        private volatile String fingerprint;
+        private volatile boolean eventDriven;
+        private volatile long dueTick;          // Bucket the device is next polled from
+
+        private PollState(long intervalMs) {
+            this.intervalMs = intervalMs;
+        }
+    }
+
+    /**
+     * Create a poll scheduler
+     *
+     * @param pollAction asynchronous poll of one device, its future completes with a
+     *                   fingerprint of the device's data, or null if the poll failed
+     * @param executor   executor that polls are dispatched on
+     * @param intervalMs polling interval in milliseconds
+     */
+    public RestconfPollScheduler(Function<DeviceId, CompletableFuture<String>> pollAction,
+                                 Executor executor, long intervalMs) {
+        this.pollAction = pollAction;
+        this.executor = executor;
+        this.intervalMs = intervalMs;
+        this.minIntervalMs = intervalMs;
+        this.maxIntervalMs = intervalMs;
+    }
+
+    /**
+     * Publish polling metrics
+     *
+     * @param metricsService metrics service
+     */
+    public synchronized void registerMetrics(MetricsService metricsService) {
+        this.metricsService = metricsService;
+        metricsComponent = metricsService.registerComponent(METRICS_COMPONENT);
+        metricsFeature = metricsComponent.registerFeature(METRICS_FEATURE);
+
+        metricsService.registerMetric(metricsComponent, metricsFeature, "devices",
+                (Gauge<Integer>) devices::size);
+        metricsService.registerMetric(metricsComponent, metricsFeature, "polls",
+                (Gauge<Long>) polls::get);
+        metricsService.registerMetric(metricsComponent, metricsFeature, "skipped",
+                (Gauge<Long>) skipped::get);
+        metricsService.registerMetric(metricsComponent, metricsFeature, "changed",
+                (Gauge<Long>) changed::get);
+        metricsService.registerMetric(metricsComponent, metricsFeature, "unchanged",
+                (Gauge<Long>) unchanged::get);
+        metricsService.registerMetric(metricsComponent, metricsFeature, "pollsAvoided",
+                (Gauge<Long>) this::getPollsAvoided);
+        metricsService.registerMetric(metricsComponent, metricsFeature, "meanIntervalMs",
+                (Gauge<Long>) this::getMeanInterval);
+    }
+
+    /**
+     * Withdraw the polling metrics
+     */
+    public synchronized void unregisterMetrics() {
+        if (metricsService != null) {
+            for (String name : new String[]{"devices", "polls", "skipped", "changed",
+                    "unchanged", "pollsAvoided", "meanIntervalMs"}) {
+                metricsService.removeMetric(metricsComponent, metricsFeature, name);
+            }
+            metricsService = null;
+        }
+    }
+
+    /**
+     * Start the scheduler tick
+     *
+     * @param timer timer the tick runs on
+     */
+    public synchronized void start(Timer timer) {
+        if (tickTimeout == null) {
+            this.timer = timer;
+            tickTimeout = timer.newTimeout(this::tick, TICK_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stop the scheduler tick and forget all devices
+     */
+    public synchronized void stop() {
+        if (tickTimeout != null) {
+            tickTimeout.cancel();
+            tickTimeout = null;
+        }
+        devices.clear();
+        buckets.clear();
+    }
+
+    /**
+     * Change the polling interval and the bounds it may adapt within.  Every device
+     * restarts adapting from the new interval.
+     *
+     * @param intervalMs    starting polling interval in milliseconds
+     * @param minIntervalMs shortest polling interval in milliseconds
+     * @param maxIntervalMs longest polling interval in milliseconds
+     */
+    public void setInterval(long intervalMs, long minIntervalMs, long maxIntervalMs) {
+        this.minIntervalMs = Math.min(minIntervalMs, intervalMs);
+        this.maxIntervalMs = Math.max(maxIntervalMs, intervalMs);
+        this.intervalMs = intervalMs;
+
+        devices.values().forEach(state ->
+                state.intervalMs = state.eventDriven ? this.maxIntervalMs : intervalMs);
+    }
+
+    /**
+     * Number of polls avoided, compared to polling every device at the starting
+     * interval.  Negative if busy devices are polled more often than that.
+     *
+     * @return polls avoided
+     */
+    public long getPollsAvoided() {
+        return pollsAvoidedMilli.get() / 1000;
+    }
+
+    /**
+     * Mean polling interval across all devices
+     *
+     * @return mean interval in milliseconds
+     */
+    public long getMeanInterval() {
+        return (long) devices.values().stream()
+                .mapToLong(state -> state.intervalMs)
+                .average()
+                .orElse(intervalMs);
+    }
+
+    /**
+     * Start polling a device.  Its first poll is at a random point within the interval.
+     *
+     * @param deviceId device identifier
+     */
+    public void add(DeviceId deviceId) {
+        PollState state = new PollState(intervalMs);
+
+        if (devices.putIfAbsent(deviceId, state) == null) {
+            schedule(deviceId, state, ThreadLocalRandom.current().nextLong(Math.max(intervalMs, 1)));
+        }
+    }
+
+    /**
+     * Poll a device on the next tick rather than waiting for its interval.  Its
+     * regular schedule continues from that poll.
+     *
+     * @param deviceId device identifier
+     */
+    public void pollSoon(DeviceId deviceId) {
+        PollState state = devices.get(deviceId);
+
+        if (state != null) {
+            schedule(deviceId, state, 0);
+        }
+    }
+
+    /**
+     * Stop polling a device
+     *
+     * @param deviceId device identifier
+     */
+    public void remove(DeviceId deviceId) {
+        devices.remove(deviceId);       // Bucket entry is dropped when it comes due
+    }
+
+    /**
+     * Mark a device as reporting its own changes.  An event driven device is only
+     * polled to reconcile, at the maximum interval.
+     *
+     * @param deviceId    device identifier
+     * @param eventDriven true if the device sends change notifications
+     */
+    public void setEventDriven(DeviceId deviceId, boolean eventDriven) {
+        PollState state = devices.get(deviceId);
+
+        if (state != null && state.eventDriven != eventDriven) {
+            state.eventDriven = eventDriven;
+            state.intervalMs = eventDriven ? maxIntervalMs : intervalMs;
+            log.debug("Device {} is {}event driven", deviceId, eventDriven ? "" : "no longer ");
+        }
+    }
+
+    private void schedule(DeviceId deviceId, PollState state, long delayMs) {
+        // Always at least one tick out so we never add to a bucket being drained.
+        // A device rescheduled early is left in its old bucket and skipped there.
+
+        long now = System.currentTimeMillis();
+        long tick = Math.max((now + delayMs) / TICK_MS, (now / TICK_MS) + 1);
+
+        state.dueTick = tick;
+        buckets.computeIfAbsent(tick, key -> ConcurrentHashMap.newKeySet()).add(deviceId);
+    }
+
+    private long nextDelay(long interval) {
+        long jitter = (interval * JITTER_PERCENT) / 100;
+
+        return interval + ((jitter > 0) ? ThreadLocalRandom.current().nextLong(-jitter, jitter + 1) : 0);
+    }
+
+    private void tick(Timeout timeout) {
+        // The wheel timer has no fixed-rate tasks, so each tick arms the next one.
+        // Buckets are keyed on wall-clock ticks, so a late wakeup just drains more.
+
+        synchronized (this) {
+            if (tickTimeout != timeout) {
+                return;
+            }
+            tickTimeout = timer.newTimeout(this::tick, TICK_MS, TimeUnit.MILLISECONDS);
+        }
+        long now = System.currentTimeMillis() / TICK_MS;
+        Map.Entry<Long, Set<DeviceId>> bucket;
+
+        while ((bucket = buckets.firstEntry()) != null && bucket.getKey() <= now) {
+            if (!buckets.remove(bucket.getKey(), bucket.getValue())) {
+                continue;
+            }
+            long tick = bucket.getKey();
+            Set<DeviceId> due = bucket.getValue();
+
+            try {
+                executor.execute(() -> due.forEach(deviceId -> poll(deviceId, tick)));
+            } catch (RuntimeException e) {
+                log.warn("Unable to dispatch {} device polls: {}", due.size(), e.toString());
+                due.forEach(deviceId -> {
+                    PollState state = devices.get(deviceId);
+
+                    if (state != null && state.dueTick == tick) {
+                        schedule(deviceId, state, nextDelay(intervalMs));
+                    }
+                });
+            }
+        }
+    }
+
+    private void poll(DeviceId deviceId, long tick) {
+        PollState state = devices.get(deviceId);
+
+        if (state == null || state.dueTick != tick) {
+            return;
+        }
+        schedule(deviceId, state, nextDelay(state.intervalMs));
+
+        if (!state.inFlight.compareAndSet(false, true)) {
+            skipped.incrementAndGet();
+            log.debug("Previous poll of {} still in progress, skipping", deviceId);
+            return;
+        }
+        polls.incrementAndGet();
+        pollsAvoidedMilli.addAndGet(((state.intervalMs - intervalMs) * 1000) / Math.max(intervalMs, 1));
+
+        try {
+            pollAction.apply(deviceId).whenComplete((fingerprint, error) -> {
+                if (error != null) {
+                    log.debug("Poll of {} failed: {}", deviceId, error.toString());
+                } else {
+                    adapt(deviceId, state, fingerprint);
+                }
+                state.inFlight.set(false);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Poll of {} failed: {}", deviceId, e.toString());
+            state.inFlight.set(false);
+        }
+    }
+
+    /**
+     * Stretch the polling interval of a device whose data did not change and shorten
+     * it for one whose data did
+     *
+     * @param deviceId    device identifier
+     * @param state       polling state of the device
+     * @param fingerprint fingerprint of the device's data, null if the poll failed
+     */
+    private void adapt(DeviceId deviceId, PollState state, String fingerprint) {
+        if (fingerprint == null) {
+            return;
+        }
+        String previous = state.fingerprint;
+        state.fingerprint = fingerprint;
+
+        if (previous == null) {
+            return;
+        }
+        long interval = state.intervalMs;
+
+        if (previous.equals(fingerprint)) {
+            unchanged.incrementAndGet();
+            state.intervalMs = Math.min(maxIntervalMs, interval + (interval / 2));
+        } else {
+            changed.incrementAndGet();
+            state.intervalMs = state.eventDriven ? maxIntervalMs : Math.max(minIntervalMs, interval / 2);
+        }
+        if (state.intervalMs != interval) {
+            log.trace("Poll interval of {} now {} ms", deviceId, state.intervalMs);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("intervalMs", intervalMs)
+                .add("minIntervalMs", minIntervalMs)
+                .add("maxIntervalMs", maxIntervalMs)
+                .add("devices", devices.size())
+                .add("polls", polls.get())
+                .add("skipped", skipped.get())
+                .add("changed", changed.get())
+                .add("unchanged", unchanged.get())
+                .add("pollsAvoided", getPollsAvoided())
+                .toString();
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.restconf.device.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.device.PortDescription;
+import org.onosproject.restconf.RestconfDeviceOutputEvent;
+import org.onosproject.restconf.RestconfDeviceOutputEventListener;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Translates device notifications about interface state into port status events.
+ * <p>
+ * Two forms of notification are understood, both in the JSON encoding:
+ * <ul>
+ * <li>Any notification content carrying an interface name together with its
+ * oper-status, including YANG push change updates whose edit targets an entry of
+ * the ietf-interfaces list.</li>
+ * <li>Link up and link down notifications naming an interface.</li>
+ * </ul>
+ * Port status changes are reported as soon as the notification arrives.  A device
+ * that has sent one is then only polled at the slow reconcile interval.
+ * <p>
+ * TODO: Nothing publishes device notifications yet, sessions do not subscribe to
+ *       device event streams (see RestconfSessionImpl.startSubscription).  Until
+ *       they do this translator is idle and port state is kept current by polling.
+ */
+public class RestconfPortEventTranslator implements RestconfDeviceOutputEventListener {
+    private final Logger log = getLogger(getClass());
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern LIST_ENTRY = Pattern.compile("/interface=([^/]+)");
+    private static final String[] NAME_FIELDS = {"name", "if-name", "interface-name", "interface"};
+
+    private final RestconfPortTracker portTracker;
+    private final BiConsumer<DeviceId, PortDescription> portChanged;
+    private final Consumer<DeviceId> eventDriven;
+
+    /**
+     * Create a notification translator
+     *
+     * @param portTracker ports last reported to the core
+     * @param portChanged called with each port whose state changed
+     * @param eventDriven called with each device that sent an interface notification
+     */
+    public RestconfPortEventTranslator(RestconfPortTracker portTracker,
+                                       BiConsumer<DeviceId, PortDescription> portChanged,
+                                       Consumer<DeviceId> eventDriven) {
+        this.portTracker = portTracker;
+        this.portChanged = portChanged;
+        this.eventDriven = eventDriven;
+    }
+
+    @Override
+    public boolean isRelevant(RestconfDeviceOutputEvent event) {
+        return event.type() == RestconfDeviceOutputEvent.Type.DEVICE_NOTIFICATION
+                && event.getDeviceInfo() != null
+                && event.getMessagePayload() != null;
+    }
+
+    @Override
+    public void event(RestconfDeviceOutputEvent event) {
+        DeviceId deviceId = event.getDeviceInfo().getDeviceId();
+        Map<String, Boolean> changes = new HashMap<>();
+
+        try {
+            collect(MAPPER.readTree(event.getMessagePayload()), null, changes);
+
+        } catch (IOException e) {
+            // XML encoded or malformed, not something we translate
+
+            log.trace("Ignoring notification from {}: {}", deviceId, e.toString());
+            return;
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        eventDriven.accept(deviceId);
+
+        changes.forEach((name, enabled) -> {
+            PortDescription port = portTracker.updatePortState(deviceId, name, enabled);
+
+            if (port != null) {
+                log.debug("Port {} of {} is now {}", name, deviceId, enabled ? "up" : "down");
+                portChanged.accept(deviceId, port);
+            }
+        });
+    }
+
+    /**
+     * Walk notification content for interface state changes
+     *
+     * @param node    content to walk
+     * @param name    interface name inherited from the enclosing content, may be null
+     * @param changes interface name to new state, updated in place
+     */
+    void collect(JsonNode node, String name, Map<String, Boolean> changes) {
+        if (node.isArray()) {
+            node.forEach(child -> collect(child, name, changes));
+            return;
+        }
+        if (!node.isObject()) {
+            return;
+        }
+        String ownName = interfaceName(node, name);
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String localName = localName(field.getKey());
+            JsonNode value = field.getValue();
+
+            if ("oper-status".equals(localName) && value.isTextual() && ownName != null) {
+                changes.put(ownName, "up".equals(value.asText()));
+
+            } else if ("link-up".equals(localName) || "link-down".equals(localName)) {
+                String linkName = value.isObject() ? interfaceName(value, ownName) : ownName;
+
+                if (linkName != null) {
+                    changes.put(linkName, "link-up".equals(localName));
+                }
+            } else if (value.isContainerNode()) {
+                collect(value, ownName, changes);
+            }
+        }
+    }
+
+    /**
+     * Interface name of an object: a name leaf, or the list key in a YANG patch
+     * edit target
+     */
+    private static String interfaceName(JsonNode node, String inherited) {
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String localName = localName(field.getKey());
+
+            if (!field.getValue().isTextual()) {
+                continue;
+            }
+            for (String nameField : NAME_FIELDS) {
+                if (nameField.equals(localName)) {
+                    return field.getValue().asText();
+                }
+            }
+            if ("target".equals(localName)) {
+                Matcher matcher = LIST_ENTRY.matcher(field.getValue().asText());
+
+                if (matcher.find()) {
+                    return decode(matcher.group(1));
+                }
+            }
+        }
+        return inherited;
+    }
+
+    private static String localName(String name) {
+        return name.substring(name.indexOf(':') + 1);
+    }
+
+    private static String decode(String key) {
+        try {
+            return URLDecoder.decode(key, "UTF-8");
+
+        } catch (UnsupportedEncodingException e) {
+            return key;
+        }
+    }
+}
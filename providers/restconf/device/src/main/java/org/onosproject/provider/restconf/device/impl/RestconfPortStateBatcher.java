@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.restconf.device.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.onlab.util.SharedScheduledExecutors;
+import org.onosproject.net.DeviceId;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Merges port enable and disable requests for a device into a single edit.
+ * <p>
+ * Requests for a device arriving within a short window are collected and sent as
+ * one PATCH of the 'enabled' leaf of each interface in the ietf-interfaces list, so
+ * an administrative action across a chassis costs one round trip.  If a port is
+ * requested more than once in a window the last request wins.  Every request is
+ * completed with the outcome of the edit that carried it.
+ */
+public class RestconfPortStateBatcher {
+    private final Logger log = getLogger(getClass());
+
+    public static final long DEFAULT_WINDOW_MS = 50;
+    public static final String INTERFACES = "/data/ietf-interfaces:interfaces";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final BiFunction<DeviceId, String, CompletableFuture<Boolean>> patchAction;
+    private final long windowMs;
+    private final Map<DeviceId, Batch> batches = new ConcurrentHashMap<>();
+
+    /**
+     * Port states collected for one device.  Only changed inside the map's compute
+     * for the device, and only read once removed from the map.
+     */
+    private static final class Batch {
+        private final Map<String, Boolean> states = new LinkedHashMap<>();
+        private final List<CompletableFuture<Boolean>> requests = new ArrayList<>();
+    }
+
+    /**
+     * Create a port state batcher
+     *
+     * @param patchAction sends the merged edit for a device, its future completes with
+     *                    true if the device accepted it
+     * @param windowMs    time to collect requests for a device, in milliseconds
+     */
+    public RestconfPortStateBatcher(BiFunction<DeviceId, String, CompletableFuture<Boolean>> patchAction,
+                                    long windowMs) {
+        this.patchAction = patchAction;
+        this.windowMs = windowMs;
+    }
+
+    /**
+     * Request that a port be enabled or disabled
+     *
+     * @param deviceId device identifier
+     * @param portName interface name of the port
+     * @param enable   true to enable the port, false to disable it
+     *
+     * @return future completed with true once the device accepted the change
+     */
+    public CompletableFuture<Boolean> submit(DeviceId deviceId, String portName, boolean enable) {
+        CompletableFuture<Boolean> request = new CompletableFuture<>();
+        boolean[] opened = {false};
+
+        batches.compute(deviceId, (id, batch) -> {
+            if (batch == null) {
+                batch = new Batch();
+                opened[0] = true;
+            }
+            batch.states.put(portName, enable);
+            batch.requests.add(request);
+            return batch;
+        });
+        if (opened[0]) {
+            SharedScheduledExecutors.getPoolThreadExecutor()
+                    .schedule(() -> flush(deviceId), windowMs, TimeUnit.MILLISECONDS);
+        }
+        return request;
+    }
+
+    private void flush(DeviceId deviceId) {
+        Batch batch = batches.remove(deviceId);
+
+        if (batch == null) {
+            return;
+        }
+        ObjectNode root = MAPPER.createObjectNode();
+        ArrayNode interfaces = root.putObject("ietf-interfaces:interfaces").putArray("interface");
+
+        batch.states.forEach((name, enabled) -> interfaces.addObject()
+                .put("name", name)
+                .put("enabled", enabled));
+
+        log.debug("Changing state of {} ports of {} for {} requests", batch.states.size(), deviceId,
+                batch.requests.size());
+        try {
+            patchAction.apply(deviceId, root.toString()).whenComplete((accepted, error) -> {
+                boolean ok = error == null && Boolean.TRUE.equals(accepted);
+
+                if (!ok) {
+                    log.warn("Device {} rejected state change of ports {}", deviceId, batch.states.keySet());
+                }
+                batch.requests.forEach(request -> request.complete(ok));
+            });
+        } catch (RuntimeException e) {
+            log.warn("Unable to change port state on {}: {}", deviceId, e.toString());
+            batch.requests.forEach(request -> request.complete(false));
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.provider.restconf.device.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.collect.ImmutableList;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.device.DefaultPortStatistics;
+import org.onosproject.net.device.PortStatistics;
+import org.onosproject.restconf.RestconfController;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Port statistics read from the interface counters in the ietf-interfaces YANG
+ * module (RFC 7223).
+ * <p>
+ * Statistics are read on every poll for every port, so only the
+ * counters are requested from the device and the reply is parsed with a streaming
+ * parser straight into a primitive array.  No document tree or per-counter object is
+ * built; the only objects created are the port statistics handed to the core.
+ */
+public final class RestconfPortStatistics {
+
+    static final String INTERFACE_STATISTICS = "/data/ietf-interfaces:interfaces-state"
+            + "?fields=interface(name;if-index;statistics)";
+
+    private static final int INITIAL_PORTS = 64;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    // Counter slots within each port's row of the counter array
+
+    private static final int IF_INDEX = 0;
+    private static final int IN_OCTETS = 1;
+    private static final int IN_UNICAST = 2;
+    private static final int IN_BROADCAST = 3;
+    private static final int IN_MULTICAST = 4;
+    private static final int IN_DISCARDS = 5;
+    private static final int IN_ERRORS = 6;
+    private static final int OUT_OCTETS = 7;
+    private static final int OUT_UNICAST = 8;
+    private static final int OUT_BROADCAST = 9;
+    private static final int OUT_MULTICAST = 10;
+    private static final int OUT_DISCARDS = 11;
+    private static final int OUT_ERRORS = 12;
+    private static final int ROW_SIZE = 13;
+
+    private RestconfPortStatistics() {
+    }
+
+    /**
+     * Read the statistics of all ports of a device
+     *
+     * @param controller RESTCONF controller
+     * @param deviceId   device identifier
+     *
+     * @return future completed with the port statistics, null if the device could
+     * not be read.  The future fails if the reply could not be parsed.
+     */
+    public static CompletableFuture<Collection<PortStatistics>> fetch(RestconfController controller,
+                                                                      DeviceId deviceId) {
+        return controller.getResource(deviceId, INTERFACE_STATISTICS).thenApply(reply -> {
+            try {
+                return reply == null ? null : parseStatistics(deviceId, reply);
+
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Invalid interface statistics: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Parse the JSON encoding (RFC 7951) of the interface list into port statistics
+     *
+     * @param deviceId device the reply came from
+     * @param reply    JSON reply
+     *
+     * @return port statistics
+     *
+     * @throws IOException if the reply is not valid JSON
+     */
+    static Collection<PortStatistics> parseStatistics(DeviceId deviceId, String reply)
+            throws IOException {
+        long[] counters = new long[INITIAL_PORTS * ROW_SIZE];
+        int ports = 0;
+
+        try (JsonParser parser = JSON.createParser(reply)) {
+            // Skip ahead to the interface list; any enclosing containers are ignored
+
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.START_ARRAY && "interface".equals(parser.getCurrentName())) {
+                    break;
+                }
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                if (counters.length < (ports + 1) * ROW_SIZE) {
+                    counters = Arrays.copyOf(counters, counters.length * 2);
+                }
+                int row = ports * ROW_SIZE;
+
+                Arrays.fill(counters, row, row + ROW_SIZE, 0L);
+                counters[row + IF_INDEX] = -1;
+
+                parseInterface(parser, counters, row);
+
+                if (counters[row + IF_INDEX] >= 0) {
+                    ports++;
+                }
+            }
+        }
+        ImmutableList.Builder<PortStatistics> statistics = ImmutableList.builder();
+
+        for (int row = 0; row < ports * ROW_SIZE; row += ROW_SIZE) {
+            statistics.add(DefaultPortStatistics.builder()
+                    .setDeviceId(deviceId)
+                    .setPort((int) counters[row + IF_INDEX])
+                    .setBytesReceived(counters[row + IN_OCTETS])
+                    .setPacketsReceived(counters[row + IN_UNICAST] + counters[row + IN_BROADCAST]
+                            + counters[row + IN_MULTICAST])
+                    .setPacketsRxDropped(counters[row + IN_DISCARDS])
+                    .setPacketsRxErrors(counters[row + IN_ERRORS])
+                    .setBytesSent(counters[row + OUT_OCTETS])
+                    .setPacketsSent(counters[row + OUT_UNICAST] + counters[row + OUT_BROADCAST]
+                            + counters[row + OUT_MULTICAST])
+                    .setPacketsTxDropped(counters[row + OUT_DISCARDS])
+                    .setPacketsTxErrors(counters[row + OUT_ERRORS])
+                    .build());
+        }
+        return statistics.build();
+    }
+
+    /**
+     * Parse one entry of the interface list into a row of the counter array
+     */
+    private static void parseInterface(JsonParser parser, long[] counters, int row)
+            throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+
+            if ("if-index".equals(field)) {
+                counters[row + IF_INDEX] = longValue(parser, value);
+
+            } else if ("statistics".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    int slot = counterSlot(parser.getCurrentName());
+
+                    value = parser.nextToken();
+
+                    if (slot >= 0) {
+                        counters[row + slot] = longValue(parser, value);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static int counterSlot(String name) {
+        switch (name) {
+            case "in-octets":
+                return IN_OCTETS;
+            case "in-unicast-pkts":
+                return IN_UNICAST;
+            case "in-broadcast-pkts":
+                return IN_BROADCAST;
+            case "in-multicast-pkts":
+                return IN_MULTICAST;
+            case "in-discards":
+                return IN_DISCARDS;
+            case "in-errors":
+                return IN_ERRORS;
+            case "out-octets":
+                return OUT_OCTETS;
+            case "out-unicast-pkts":
+                return OUT_UNICAST;
+            case "out-broadcast-pkts":
+                return OUT_BROADCAST;
+            case "out-multicast-pkts":
+                return OUT_MULTICAST;
+            case "out-discards":
+                return OUT_DISCARDS;
+            case "out-errors":
+                return OUT_ERRORS;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Read an integer value.  RFC 7951 encodes 64-bit counters as JSON strings, which
+     * are converted from the parser's buffer without creating a String.  Counter64
+     * values beyond the range of a Java long are clamped to Long.MAX_VALUE.
+     */
+    private static long longValue(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER ?
+                    Long.MAX_VALUE : parser.getLongValue();
+        }
+        if (token != JsonToken.VALUE_STRING) {
+            parser.skipChildren();
+            return 0;
+        }
+        char[] text = parser.getTextCharacters();
+        int end = parser.getTextOffset() + parser.getTextLength();
+        long result = 0;
+
+        for (int index = parser.getTextOffset(); index < end; index++) {
+            int digit = text[index] - '0';
+
+            if (digit < 0 || digit > 9) {
+                return 0;
+            }
+            result = (result > (Long.MAX_VALUE - digit) / 10) ? Long.MAX_VALUE : result * 10 + digit;
+        }
+        return result;
+    }
+}
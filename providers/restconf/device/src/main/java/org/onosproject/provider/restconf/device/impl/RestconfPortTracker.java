@@ -0,0 +1,232 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.restconf.device.impl;
+
+import com.google.common.collect.Maps;
+import org.onosproject.net.AnnotationKeys;
+import org.onosproject.net.Annotations;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.device.DefaultPortDescription;
+import org.onosproject.net.device.DeviceProviderService;
+import org.onosproject.net.device.PortDescription;
+import org.onosproject.net.device.PortStatistics;
+import org.slf4j.Logger;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Tracks the ports last reported to the core for each device so that a port refresh
+ * only sends what changed.
+ * <p>
+ * The first refresh of a device reports its full port list.  Later refreshes report
+ * each added or changed port on its own and leave unchanged ports alone.  The core
+ * can only learn of a removed port from a full port list, so a full list is sent
+ * only when a port has gone away.
+ * <p>
+ * Port statistics are compared with the previous sample in the same way.  The core
+ * expects cumulative counters and replaces a device's statistics as a whole, so a
+ * sample is sent in full, but only when some counter moved since the last one.
+ */
+public class RestconfPortTracker {
+    private final Logger log = getLogger(getClass());
+
+    private final Map<DeviceId, Map<PortNumber, PortDescription>> reported = new ConcurrentHashMap<>();
+    private final Map<DeviceId, Map<Integer, PortStatistics>> samples = new ConcurrentHashMap<>();
+    private final Map<DeviceId, String> fingerprints = new ConcurrentHashMap<>();
+
+    /**
+     * Record the latest fingerprint of a device's interface data
+     *
+     * @param deviceId    device identifier
+     * @param fingerprint fingerprint from the last poll
+     *
+     * @return true if the fingerprint differs from the previous one and the ports
+     * should be refreshed
+     */
+    public boolean fingerprintChanged(DeviceId deviceId, String fingerprint) {
+        return fingerprint != null && !fingerprint.equals(fingerprints.put(deviceId, fingerprint));
+    }
+
+    /**
+     * Report the ports of a device to the core, sending only the differences from
+     * the last report
+     *
+     * @param deviceId device identifier
+     * @param ports    all ports of the device
+     * @param service  provider service to report through
+     *
+     * @return number of ports sent to the core
+     */
+    public synchronized int refresh(DeviceId deviceId, List<PortDescription> ports,
+                                    DeviceProviderService service) {
+        if (ports.isEmpty()) {
+            // Also what the driver returns when the device could not be read, so
+            // rather than dropping every port keep what was reported last
+
+            return 0;
+        }
+        Map<PortNumber, PortDescription> current = Maps.newHashMapWithExpectedSize(ports.size());
+        ports.forEach(port -> current.put(port.portNumber(), port));
+
+        Map<PortNumber, PortDescription> previous = reported.put(deviceId, current);
+
+        if (previous == null || !current.keySet().containsAll(previous.keySet())) {
+            service.updatePorts(deviceId, ports);
+            return ports.size();
+        }
+        int sent = 0;
+
+        for (PortDescription port : ports) {
+            if (!samePort(port, previous.get(port.portNumber()))) {
+                service.portStatusChanged(deviceId, port);
+                sent++;
+            }
+        }
+        log.debug("Port refresh of {}: {} of {} ports changed", deviceId, sent, ports.size());
+        return sent;
+    }
+
+    /**
+     * Interface name of a port last reported for a device
+     *
+     * @param deviceId   device identifier
+     * @param portNumber port number
+     *
+     * @return interface name, or null if the port is not known
+     */
+    public synchronized String portName(DeviceId deviceId, PortNumber portNumber) {
+        Map<PortNumber, PortDescription> ports = reported.get(deviceId);
+        PortDescription port = ports == null ? null : ports.get(portNumber);
+
+        return port == null ? null : port.annotations().value(AnnotationKeys.PORT_NAME);
+    }
+
+    /**
+     * Record a change of port state learned outside of a refresh, such as from a
+     * device notification
+     *
+     * @param deviceId device identifier
+     * @param portName interface name of the port
+     * @param enabled  true if the port is now up
+     *
+     * @return updated port description to report, or null if the port is not known
+     * or its state did not change
+     */
+    public synchronized PortDescription updatePortState(DeviceId deviceId, String portName,
+                                                        boolean enabled) {
+        Map<PortNumber, PortDescription> ports = reported.get(deviceId);
+
+        if (ports == null) {
+            return null;
+        }
+        for (PortDescription port : ports.values()) {
+            if (portName.equals(port.annotations().value(AnnotationKeys.PORT_NAME))) {
+                if (port.isEnabled() == enabled) {
+                    return null;
+                }
+                PortDescription updated = new DefaultPortDescription(port.portNumber(), enabled,
+                        port.type(), port.portSpeed(), port.annotations());
+
+                ports.put(port.portNumber(), updated);
+                return updated;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Report the port statistics of a device to the core if any counter changed
+     * since the previous sample
+     *
+     * @param deviceId   device identifier
+     * @param statistics cumulative statistics of all ports of the device
+     * @param service    provider service to report through
+     *
+     * @return number of ports whose counters changed
+     */
+    public int refreshStatistics(DeviceId deviceId, Collection<PortStatistics> statistics,
+                                 DeviceProviderService service) {
+        if (statistics.isEmpty()) {
+            return 0;
+        }
+        Map<Integer, PortStatistics> current = Maps.newHashMapWithExpectedSize(statistics.size());
+        statistics.forEach(stats -> current.put(stats.port(), stats));
+
+        Map<Integer, PortStatistics> previous = samples.put(deviceId, current);
+        int changed = 0;
+
+        for (PortStatistics stats : statistics) {
+            if (previous == null || !sameCounters(stats, previous.get(stats.port()))) {
+                changed++;
+            }
+        }
+        if (changed > 0 || previous == null || previous.size() != current.size()) {
+            service.updatePortStatistics(deviceId, statistics);
+        }
+        log.debug("Statistics of {}: {} of {} ports changed", deviceId, changed, statistics.size());
+        return changed;
+    }
+
+    /**
+     * Forget a device so its next refresh reports the full port list
+     *
+     * @param deviceId device identifier
+     */
+    public synchronized void remove(DeviceId deviceId) {
+        reported.remove(deviceId);
+        samples.remove(deviceId);
+        fingerprints.remove(deviceId);
+    }
+
+    private static boolean samePort(PortDescription port, PortDescription other) {
+        return other != null
+                && port.isEnabled() == other.isEnabled()
+                && port.type() == other.type()
+                && port.portSpeed() == other.portSpeed()
+                && sameAnnotations(port.annotations(), other.annotations());
+    }
+
+    private static boolean sameCounters(PortStatistics stats, PortStatistics other) {
+        return other != null
+                && stats.bytesReceived() == other.bytesReceived()
+                && stats.bytesSent() == other.bytesSent()
+                && stats.packetsReceived() == other.packetsReceived()
+                && stats.packetsSent() == other.packetsSent()
+                && stats.packetsRxDropped() == other.packetsRxDropped()
+                && stats.packetsTxDropped() == other.packetsTxDropped()
+                && stats.packetsRxErrors() == other.packetsRxErrors()
+                && stats.packetsTxErrors() == other.packetsTxErrors();
+    }
+
+    private static boolean sameAnnotations(Annotations annotations, Annotations other) {
+        if (!annotations.keys().equals(other.keys())) {
+            return false;
+        }
+        for (String key : annotations.keys()) {
+            if (!Objects.equals(annotations.value(key), other.value(key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,19 +1,27 @@
 package org.onosproject.provider.restconf.device.impl;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import org.onlab.packet.IpAddress;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.incubator.net.config.basics.ConfigException;
-import org.onosproject.net.DeviceId;
 import org.onosproject.net.config.Config;
 import org.onosproject.restconf.RestconfDeviceInfo;
+import org.onosproject.restconf.RestconfExecutionMode;
 
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.onosproject.net.config.Config.FieldPresence.MANDATORY;
 import static org.onosproject.net.config.Config.FieldPresence.OPTIONAL;
@@ -37,12 +45,17 @@ public class RestconfProviderConfig extends Config<ApplicationId> {
     public static final int DEFAULT_EVENT_INTERVAL = 5;        // seconds
     public static final int MIN_EVENT_INTERVAL = 1;
     public static final int MAX_EVENT_INTERVAL = 60;
+    public static final int DEFAULT_MIN_EVENT_INTERVAL = DEFAULT_EVENT_INTERVAL;
+    public static final int DEFAULT_MAX_EVENT_INTERVAL = MAX_EVENT_INTERVAL;
 
     public static final int DEFAULT_CONNECTION_TIMEOUT = 15 * 1000;  // milliseconds
     public static final int MIN_CONNECTION_TIMEOUT = 500;
     public static final int MAX_CONNECTION_TIMEOUT = 3 * 60 * 1000;
     public static final boolean DEFAULT_ADMIN_STATE_UP = true;
 
+    public static final String DEFAULT_EXECUTION_MODE = "platform";   // or 'virtual'
+    public static final boolean DEFAULT_WARM_STANDBY = false;
+
     // TODO: for some values, have a maximum as well...
 
     static final int DEFAULT_SSL_PORT = 443;
@@ -55,14 +68,20 @@ public class RestconfProviderConfig extends Config<ApplicationId> {
     static final String DEFAULT_XML_MEDIA_TYPE = "xml";
     static final String DEFAULT_JSON_MEDIA_TYPE = "json";
     static final String DEFAULT_API_ROOT = "/restconf";
+    static final List<String> DEFAULT_MEDIA_TYPES =
+            ImmutableList.of(DEFAULT_XML_MEDIA_TYPE, DEFAULT_JSON_MEDIA_TYPE);
 
     /////////////////////////////////////////////////////////////////////////
     // Application level Properties
 
     private static String WORKER_THREADS = "workerThreads";
     private static String EVENT_INTERVAL = "eventInterval";
+    private static String MIN_EVENT_INTERVAL_KEY = "minEventInterval";
+    private static String MAX_EVENT_INTERVAL_KEY = "maxEventInterval";
     private static String CONNECTION_TIMEOUT = "connectionTimeout"; // Also per-device
     private static String SSL_PREFERRED = "sslPreferred";
+    private static String EXECUTION_MODE = "executionMode";
+    private static String WARM_STANDBY = "warmStandby";
 
     public static final String CONFIG_VALUE_ERROR = "Error parsing config value";
 
@@ -86,6 +105,18 @@ public class RestconfProviderConfig extends Config<ApplicationId> {
 //            + "[0-9A-Za-z])?(?:\\.[0-9A-Za-z](?:(?:[0-9A-Za-z]|-){0,61}[0-9A-Za-z])?)*\\.?$";
     private static String filePathRegEx = "^(/[^/ ]*)+/?$";
 
+    // Any execution mode name, case insensitive as for RestconfExecutionMode.fromString()
+
+    private static final String EXECUTION_MODE_REGEX = Arrays.stream(RestconfExecutionMode.values())
+            .map(RestconfExecutionMode::name)
+            .collect(Collectors.joining("|", "(?i)(", ")"));
+
+    // Device arrays at least this large are parsed in parallel
+
+    private static final int PARALLEL_PARSE_THRESHOLD = 1024;
+
+    private static volatile DeviceInfoMemo deviceInfoMemo;
+
     // TODO: Need a number of times we fail on a permanent redirect 'GET' request before we
     //       start to rediscover from the base URI.
     // TODO: For 302 (Temporary redirects) need a default 'rediscover'/'revert' timeout.
@@ -94,7 +125,9 @@ public class RestconfProviderConfig extends Config<ApplicationId> {
     @Override
     public boolean isValid() {
         return hasOnlyFields(WORKER_THREADS, CONNECTION_TIMEOUT, EVENT_INTERVAL,
-                SSL_PREFERRED, DEVICES, USERNAME, PASSWORD, CERTIFICATE_PATH,
+                MIN_EVENT_INTERVAL_KEY, MAX_EVENT_INTERVAL_KEY,
+                SSL_PREFERRED, EXECUTION_MODE, WARM_STANDBY,
+                DEVICES, USERNAME, PASSWORD, CERTIFICATE_PATH,
                 IP_ADDRESS, PORT, IS_TLS, API_ROOT, MEDIA_TYPES, COMMENT)
                 // Mandatory items
 
@@ -106,7 +139,11 @@ public class RestconfProviderConfig extends Config<ApplicationId> {
                 && isNumber(WORKER_THREADS, OPTIONAL, MIN_WORKER_THREADS, MAX_WORKER_THREADS)
                 && isNumber(CONNECTION_TIMEOUT, OPTIONAL, MIN_CONNECTION_TIMEOUT, MAX_CONNECTION_TIMEOUT)
                 && isNumber(EVENT_INTERVAL, OPTIONAL, MIN_EVENT_INTERVAL, MAX_EVENT_INTERVAL)
+                && isNumber(MIN_EVENT_INTERVAL_KEY, OPTIONAL, MIN_EVENT_INTERVAL, MAX_EVENT_INTERVAL)
+                && isNumber(MAX_EVENT_INTERVAL_KEY, OPTIONAL, MIN_EVENT_INTERVAL, MAX_EVENT_INTERVAL)
                 && isBoolean(SSL_PREFERRED, OPTIONAL)
+                && isString(EXECUTION_MODE, OPTIONAL, EXECUTION_MODE_REGEX)
+                && isBoolean(WARM_STANDBY, OPTIONAL)
                 && isString(CERTIFICATE_PATH, OPTIONAL, filePathRegEx)
                 && isNumber(PORT, OPTIONAL, MIN_PORT_NUMBER, MAX_PORT_NUMBER)
                 && isBoolean(IS_TLS, OPTIONAL)
@@ -137,6 +174,28 @@ public class RestconfProviderConfig extends Config<ApplicationId> {
         return get(EVENT_INTERVAL, DEFAULT_EVENT_INTERVAL);
     }
 
+    /**
+     * The shortest polling interval a device that changes often is polled at, in seconds
+     *
+     * @return number of seconds
+     *
+     * @throws ConfigException
+     */
+    public int getMinEventInterval() throws ConfigException {
+        return get(MIN_EVENT_INTERVAL_KEY, DEFAULT_MIN_EVENT_INTERVAL);
+    }
+
+    /**
+     * The longest polling interval a device that rarely changes is polled at, in seconds
+     *
+     * @return number of seconds
+     *
+     * @throws ConfigException
+     */
+    public int getMaxEventInterval() throws ConfigException {
+        return get(MAX_EVENT_INTERVAL_KEY, DEFAULT_MAX_EVENT_INTERVAL);
+    }
+
     /**
      * The number of milliseconds to wait for a response to a REST command
      *
@@ -148,71 +207,201 @@ public class RestconfProviderConfig extends Config<ApplicationId> {
         return get(CONNECTION_TIMEOUT, DEFAULT_CONNECTION_TIMEOUT);
     }
 
+    /**
+     * Whether STANDBY nodes keep their sessions to devices so that a promotion to
+     * MASTER does not need a full rediscovery
+     *
+     * @return true if warm standby is enabled
+     *
+     * @throws ConfigException
+     */
+    public boolean getWarmStandby() throws ConfigException {
+        return get(WARM_STANDBY, DEFAULT_WARM_STANDBY);
+    }
+
+    /**
+     * How blocking device operations are executed, on a pool of platform threads or
+     * one virtual thread per operation
+     *
+     * @return execution mode
+     *
+     * @throws ConfigException
+     */
+    public RestconfExecutionMode getExecutionMode() throws ConfigException {
+        try {
+            return RestconfExecutionMode.fromString(get(EXECUTION_MODE, DEFAULT_EXECUTION_MODE));
+        } catch (IllegalArgumentException e) {
+            throw new ConfigException(CONFIG_VALUE_ERROR, e);
+        }
+    }
+
     /**
      * Return an immutable map of the devices in the configuration file
      * <p>
      * The key for the map is the string composed of the IP Address and port number for the
      * device.  The contents of the device info provides further information/clarification
      * for the way to contact/discover the device.
+     * <p>
+     * The result is memoized against the content of the devices array, so repeated
+     * calls for an unchanged configuration do not parse it again.
      *
      * @return immutable map of Device Information
      *
-     * @throws ConfigException
+     * @throws ConfigException if the devices array or one of its entries is not valid
      */
     public Map<String, RestconfDeviceInfo> getDeviceInfo() throws ConfigException {
+        if (!object.has(DEVICES)) {
+            return Collections.emptyMap();
+        }
+        if (!object.path(DEVICES).isArray()) {
+            throw new ConfigException(CONFIG_VALUE_ERROR + ": " + DEVICES + " is not an array");
+        }
+        ArrayNode nodeArray = (ArrayNode) object.path(DEVICES);
+        int timeout = get(CONNECTION_TIMEOUT, DEFAULT_CONNECTION_TIMEOUT);
 
-        Map<String, RestconfDeviceInfo> devicesInfo = Maps.newHashMap();
+        DeviceInfoMemo memo = deviceInfoMemo;
 
-        if (object.has(DEVICES)) {
-            ArrayNode nodeArray = (ArrayNode) object.path(DEVICES);
+        if (memo != null && memo.matches(nodeArray, timeout)) {
+            return memo.devices;
+        }
+        try {
+            // Entries are independent so large arrays are parsed and validated in parallel
 
-            try {
-                nodeArray.forEach(node -> {
-                    // Mandatory items
-                    String userName = node.path(USERNAME).asText("");
-                    String password = node.path(PASSWORD).asText("");
-                    IpAddress address = IpAddress.valueOf(node.path(IP_ADDRESS).asText(""));
+            IntStream indexes = IntStream.range(0, nodeArray.size());
 
-                    // Optional items
+            if (nodeArray.size() >= PARALLEL_PARSE_THRESHOLD) {
+                indexes = indexes.parallel();
+            }
+            Map<String, RestconfDeviceInfo> devicesInfo = indexes
+                    .mapToObj(index -> parseDeviceInfo(nodeArray.get(index), timeout))
+                    .collect(Collectors.toMap(RestconfProviderConfig::deviceKey, Function.identity(),
+                            (first, second) -> second));
 
-                    String certPath = node.path(CERTIFICATE_PATH).asText("");
-                    boolean tls = node.path(IS_TLS).asBoolean(DEFAULT_IS_TLS);
-                    boolean adminUp = node.path(ADMIN_UP).asBoolean(DEFAULT_ADMIN_STATE_UP);
-                    int timeout = get(CONNECTION_TIMEOUT, DEFAULT_CONNECTION_TIMEOUT);
-                    String apiRoot = node.path(API_ROOT).asText(DEFAULT_API_ROOT);
-                    List<String> mediaTypes = Lists.newArrayList();
+            Map<String, RestconfDeviceInfo> devices = Collections.unmodifiableMap(devicesInfo);
 
-                    // The 'notes' section is mainly to allow some comments to be added
-                    // per-device to the config JSON, not necessarily the device that we
-                    // will create.
+            deviceInfoMemo = new DeviceInfoMemo(nodeArray, timeout, devices);
+            return devices;
 
-                    if (node.has(MEDIA_TYPES)) {
-                        node.forEach(mtype -> mediaTypes.add(node.asText()));
-                    } else {
-                        mediaTypes.add(DEFAULT_XML_MEDIA_TYPE);
-                        mediaTypes.add(DEFAULT_JSON_MEDIA_TYPE);
-                    }
-                    // Port is optional but we derive it based on TLS settings
+        } catch (IllegalArgumentException e) {
+            // Also covers invalid entries rethrown from the parallel parse
 
-                    int port = DEFAULT_SSL_PORT;
+            throw new ConfigException(CONFIG_VALUE_ERROR, e);
+        }
+    }
 
-                    port = node.has(PORT) ? node.path(PORT).asInt() :
-                            tls ? DEFAULT_SSL_PORT : DEFAULT_TCP_PORT;
+    /**
+     * Iterate over the devices in the configuration file without building a map of them
+     * <p>
+     * Each entry is parsed as it is reached, so very large configurations are never held
+     * in memory twice.  A memoized result of {@link #getDeviceInfo()} for the same
+     * content is reused.
+     *
+     * @return iterator over the device information.  Its next() throws an
+     * IllegalArgumentException for an entry that is not valid.
+     *
+     * @throws ConfigException if the devices value is not an array
+     */
+    public Iterator<RestconfDeviceInfo> getDeviceInfoIterator() throws ConfigException {
+        if (!object.has(DEVICES)) {
+            return Collections.emptyIterator();
+        }
+        if (!object.path(DEVICES).isArray()) {
+            throw new ConfigException(CONFIG_VALUE_ERROR + ": " + DEVICES + " is not an array");
+        }
+        ArrayNode nodeArray = (ArrayNode) object.path(DEVICES);
+        int timeout = get(CONNECTION_TIMEOUT, DEFAULT_CONNECTION_TIMEOUT);
 
-                    RestconfDeviceInfo device = new RestconfDeviceInfo(address,
-                            port, tls, timeout,
-                            userName, password, certPath, apiRoot,
-                            mediaTypes, adminUp);
+        DeviceInfoMemo memo = deviceInfoMemo;
 
-                    DeviceId did = RestconfDeviceInfo.createDeviceId(address, port);
+        if (memo != null && memo.matches(nodeArray, timeout)) {
+            return memo.devices.values().iterator();
+        }
+        return Iterators.transform(nodeArray.elements(), node -> parseDeviceInfo(node, timeout));
+    }
 
-                    // Key is IP-ADDR:PORT
-                    devicesInfo.put(did.uri().getSchemeSpecificPart(), device);
-                });
-            } catch (IllegalArgumentException e) {
-                throw new ConfigException(CONFIG_VALUE_ERROR, e);
-            }
+    /**
+     * Parse one entry of the devices array
+     *
+     * @param node    device entry
+     * @param timeout connection timeout to use for the device
+     *
+     * @return device information
+     *
+     * @throws IllegalArgumentException if the entry is not valid
+     */
+    private static RestconfDeviceInfo parseDeviceInfo(JsonNode node, int timeout) {
+        // Mandatory items
+        String userName = node.path(USERNAME).asText("");
+        String password = node.path(PASSWORD).asText("");
+        IpAddress address = IpAddress.valueOf(node.path(IP_ADDRESS).asText(""));
+
+        // Optional items
+
+        String certPath = node.path(CERTIFICATE_PATH).asText("");
+        boolean tls = node.path(IS_TLS).asBoolean(DEFAULT_IS_TLS);
+        boolean adminUp = node.path(ADMIN_UP).asBoolean(DEFAULT_ADMIN_STATE_UP);
+        String apiRoot = node.path(API_ROOT).asText(DEFAULT_API_ROOT);
+        List<String> mediaTypes = DEFAULT_MEDIA_TYPES;
+
+        // The 'notes' section is mainly to allow some comments to be added
+        // per-device to the config JSON, not necessarily the device that we
+        // will create.
+
+        if (node.has(MEDIA_TYPES)) {
+            List<String> configured = Lists.newArrayList();
+
+            node.path(MEDIA_TYPES).forEach(mtype -> configured.add(mtype.asText()));
+            mediaTypes = configured;
+        }
+        // Port is optional but we derive it based on TLS settings
+
+        int port = node.has(PORT) ? node.path(PORT).asInt() :
+                tls ? DEFAULT_SSL_PORT : DEFAULT_TCP_PORT;
+
+        return new RestconfDeviceInfo(address,
+                port, tls, timeout,
+                userName, password, certPath, apiRoot,
+                mediaTypes, adminUp);
+    }
+
+    /**
+     * Map key for a device
+     *
+     * @param device device information
+     *
+     * @return IP-ADDR:PORT
+     */
+    private static String deviceKey(RestconfDeviceInfo device) {
+        return device.getDeviceId().uri().getSchemeSpecificPart();
+    }
+
+    /**
+     * Most recently parsed device list and the JSON it was parsed from.
+     * <p>
+     * The memo is keyed on the content of the array, not on which node it is: the
+     * content hash taken when it was parsed must match, so an array edited in place is
+     * parsed again, and a different node must also be equal to the one parsed.  Hashing
+     * and comparing the tree is much cheaper than parsing every entry.  The node is
+     * weakly held so a replaced configuration can still be collected.
+     */
+    private static final class DeviceInfoMemo {
+        private final WeakReference<JsonNode> node;
+        private final int hash;
+        private final int timeout;
+        private final Map<String, RestconfDeviceInfo> devices;
+
+        private DeviceInfoMemo(JsonNode node, int timeout, Map<String, RestconfDeviceInfo> devices) {
+            this.node = new WeakReference<>(node);
+            this.hash = node.hashCode();
+            this.timeout = timeout;
+            this.devices = devices;
+        }
+
+        private boolean matches(JsonNode other, int otherTimeout) {
+            JsonNode parsed = node.get();
+
+            return parsed != null && timeout == otherTimeout && hash == other.hashCode()
+                    && (parsed == other || parsed.equals(other));
         }
-        return Collections.unmodifiableMap(devicesInfo);
     }
 }
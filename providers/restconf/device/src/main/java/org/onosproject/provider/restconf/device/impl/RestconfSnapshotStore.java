@@ -0,0 +1,212 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.restconf.device.impl;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onosproject.net.DeviceId;
+import org.onosproject.restconf.RestconfDeviceIdentity;
+import org.onosproject.restconf.RestconfDeviceSnapshot;
+import org.slf4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Compact local file store of RESTCONF device snapshots used for a fast warm restart.
+ * <p>
+ * File format (big-endian):
+ * <pre>
+ *   int    magic ('RCSF')
+ *   short  version
+ *   int    device count
+ *   per device:
+ *     string deviceId, apiRoot, moduleSetId, mediaType
+ *     byte   last state
+ *     int    capability count, followed by that many capability strings
+ *     string manufacturer, hwVersion, swVersion, serialNumber
+ * </pre>
+ * where each string is an int length followed by UTF-8 bytes.
+ */
+public class RestconfSnapshotStore {
+    private final Logger log = getLogger(getClass());
+
+    private static final int MAGIC = 0x52435346;      // 'RCSF'
+    private static final short VERSION = 3;
+    private static final String SNAPSHOT_FILE = "restconf/device-snapshot.bin";
+
+    private final Path path;
+
+    /**
+     * Create a snapshot store in the ONOS (karaf) data directory
+     */
+    public RestconfSnapshotStore() {
+        this(Paths.get(System.getProperty("karaf.data",
+                System.getProperty("java.io.tmpdir")), SNAPSHOT_FILE));
+    }
+
+    /**
+     * Create a snapshot store at a specific location
+     *
+     * @param path snapshot file
+     */
+    public RestconfSnapshotStore(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Save device snapshots, replacing any previous snapshot file
+     *
+     * @param snapshots device snapshots to save
+     */
+    public void write(Collection<RestconfDeviceSnapshot> snapshots) {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            Files.createDirectories(path.getParent());
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                out.writeInt(snapshots.size());
+
+                for (RestconfDeviceSnapshot snapshot : snapshots) {
+                    writeString(out, snapshot.getDeviceId().toString());
+                    writeString(out, snapshot.getApiRoot());
+                    writeString(out, snapshot.getModuleSetId());
+                    writeString(out, snapshot.getMediaType());
+                    out.writeByte(snapshot.getLastState());
+                    out.writeInt(snapshot.getCapabilities().size());
+
+                    for (String capability : snapshot.getCapabilities()) {
+                        writeString(out, capability);
+                    }
+                    RestconfDeviceIdentity identity = snapshot.getIdentity();
+
+                    writeString(out, identity.manufacturer());
+                    writeString(out, identity.hwVersion());
+                    writeString(out, identity.swVersion());
+                    writeString(out, identity.serialNumber());
+                }
+            }
+            // Replace atomically so a crash mid-write never leaves a truncated snapshot
+
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+
+            log.debug("Saved {} device snapshots to {}", snapshots.size(), path);
+
+        } catch (IOException e) {
+            log.warn("Unable to save device snapshots to {}: {}", path, e.toString());
+
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+                // Nothing more we can do, the next save overwrites it
+            }
+        }
+    }
+
+    /**
+     * Load device snapshots saved by a previous run
+     *
+     * @return map of device snapshots, empty if no valid snapshot file exists
+     */
+    public Map<DeviceId, RestconfDeviceSnapshot> read() {
+        if (!Files.isRegularFile(path)) {
+            return Collections.emptyMap();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                log.warn("Ignoring device snapshot {} with unknown format", path);
+                return Collections.emptyMap();
+            }
+            int count = buffer.getInt();
+            Map<DeviceId, RestconfDeviceSnapshot> snapshots = Maps.newHashMapWithExpectedSize(count);
+
+            for (int index = 0; index < count; index++) {
+                DeviceId deviceId = DeviceId.deviceId(readString(buffer));
+                String apiRoot = readString(buffer);
+                String moduleSetId = readString(buffer);
+                String mediaType = readString(buffer);
+                int lastState = buffer.get();
+                int numCapabilities = readLength(buffer);
+                Set<String> capabilities = Sets.newHashSetWithExpectedSize(numCapabilities);
+
+                for (int cap = 0; cap < numCapabilities; cap++) {
+                    capabilities.add(readString(buffer));
+                }
+                RestconfDeviceIdentity identity = RestconfDeviceIdentity.of(readString(buffer),
+                        readString(buffer), readString(buffer), readString(buffer));
+
+                snapshots.put(deviceId, new RestconfDeviceSnapshot(deviceId, apiRoot,
+                        moduleSetId, mediaType, capabilities, identity, lastState));
+            }
+            log.info("Loaded {} device snapshots from {}", snapshots.size(), path);
+            return snapshots;
+
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("Unable to load device snapshots from {}: {}", path, e.toString());
+            return Collections.emptyMap();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        byte[] bytes = new byte[readLength(buffer)];
+
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a length, checked against what is left of the file so that a corrupt
+     * length fails the read rather than allocating a huge buffer
+     */
+    private static int readLength(MappedByteBuffer buffer) {
+        int length = buffer.getInt();
+
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid length " + length);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.restconf.device.impl;
+
+import io.netty.util.HashedWheelTimer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests adaptive polling intervals of the poll scheduler.
+ */
+public class RestconfPollSchedulerTest {
+    private static final long TIMEOUT_MS = TimeUnit.SECONDS.toMillis(15);
+    private static final DeviceId DEVICE = DeviceId.deviceId("restconf:10.0.0.1:8080");
+
+    private HashedWheelTimer timer;
+    private RestconfPollScheduler scheduler;
+    private final AtomicInteger polls = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.stop();
+        timer.stop();
+    }
+
+    private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private void start(long intervalMs, long minIntervalMs, long maxIntervalMs,
+                       CompletableFuture<String> result) {
+        scheduler = new RestconfPollScheduler(deviceId -> {
+            polls.incrementAndGet();
+            return result;
+        }, Runnable::run, intervalMs);
+
+        scheduler.setInterval(intervalMs, minIntervalMs, maxIntervalMs);
+        scheduler.start(timer);
+        scheduler.add(DEVICE);
+    }
+
+    private void start(long intervalMs, long minIntervalMs, long maxIntervalMs,
+                       IntFunction<String> fingerprint) {
+        scheduler = new RestconfPollScheduler(deviceId ->
+                CompletableFuture.completedFuture(fingerprint.apply(polls.incrementAndGet())),
+                Runnable::run, intervalMs);
+
+        scheduler.setInterval(intervalMs, minIntervalMs, maxIntervalMs);
+        scheduler.start(timer);
+        scheduler.add(DEVICE);
+    }
+
+    @Test
+    public void unchangedDeviceBacksOff() throws InterruptedException {
+        start(RestconfPollScheduler.TICK_MS, RestconfPollScheduler.TICK_MS, 1000, poll -> "same");
+
+        assertTrue(waitFor(() -> scheduler.getMeanInterval() == 1000));
+        assertTrue(polls.get() >= 5);
+        assertTrue(scheduler.getPollsAvoided() > 0);
+    }
+
+    @Test
+    public void changingDeviceSpeedsUp() throws InterruptedException {
+        start(1000, RestconfPollScheduler.TICK_MS, 1000, poll -> "change-" + poll);
+
+        scheduler.pollSoon(DEVICE);
+
+        assertTrue(waitFor(() -> scheduler.getMeanInterval() == RestconfPollScheduler.TICK_MS));
+
+        // Polled more often than the starting interval once it has settled
+
+        assertTrue(waitFor(() -> scheduler.getPollsAvoided() < 0));
+    }
+
+    @Test
+    public void failedPollKeepsInterval() throws InterruptedException {
+        start(RestconfPollScheduler.TICK_MS, RestconfPollScheduler.TICK_MS, 1000, poll -> null);
+
+        assertTrue(waitFor(() -> polls.get() >= 3));
+        assertEquals(RestconfPollScheduler.TICK_MS, scheduler.getMeanInterval());
+    }
+
+    @Test
+    public void eventDrivenHeldAtMaximum() {
+        start(500, RestconfPollScheduler.TICK_MS, 4000, poll -> "change-" + poll);
+
+        scheduler.setEventDriven(DEVICE, true);
+        assertEquals(4000, scheduler.getMeanInterval());
+
+        scheduler.setEventDriven(DEVICE, false);
+        assertEquals(500, scheduler.getMeanInterval());
+
+        // A new interval restarts adaptation, event driven devices stay at the maximum
+
+        scheduler.setEventDriven(DEVICE, true);
+        scheduler.setInterval(1000, 500, 8000);
+        assertEquals(8000, scheduler.getMeanInterval());
+    }
+
+    @Test
+    public void pollInFlightSkipped() throws InterruptedException {
+        start(RestconfPollScheduler.TICK_MS, RestconfPollScheduler.TICK_MS, 1000,
+                new CompletableFuture<>());
+
+        assertTrue(waitFor(() -> scheduler.toString().contains("skipped=2")));
+        assertEquals(1, polls.get());
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.restconf.device.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests translation of device notifications into interface state changes.
+ */
+public class RestconfPortEventTranslatorTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private RestconfPortEventTranslator translator;
+
+    @Before
+    public void setUp() {
+        translator = new RestconfPortEventTranslator(new RestconfPortTracker(),
+                (deviceId, port) -> { }, deviceId -> { });
+    }
+
+    private Map<String, Boolean> collect(String payload) throws IOException {
+        Map<String, Boolean> changes = new HashMap<>();
+
+        translator.collect(MAPPER.readTree(payload), null, changes);
+        return changes;
+    }
+
+    @Test
+    public void interfacesStateNotification() throws IOException {
+        Map<String, Boolean> changes = collect("{\"ietf-restconf:notification\": {"
+                + "\"eventTime\": \"2016-06-01T12:00:00Z\","
+                + "\"ietf-interfaces:interfaces-state\": {\"interface\": ["
+                + "{\"name\": \"eth0\", \"if-index\": 1, \"oper-status\": \"up\"},"
+                + "{\"name\": \"eth1\", \"if-index\": 2, \"oper-status\": \"lower-layer-down\"}"
+                + "]}}}");
+
+        assertEquals(ImmutableMap.of("eth0", true, "eth1", false), changes);
+    }
+
+    @Test
+    public void yangPatchEditTarget() throws IOException {
+        Map<String, Boolean> changes = collect("{\"ietf-restconf:notification\": {"
+                + "\"ietf-yang-push:push-change-update\": {\"datastore-changes\": {"
+                + "\"ietf-yang-patch:yang-patch\": {\"patch-id\": \"1\", \"edit\": ["
+                + "{\"edit-id\": \"1\", \"operation\": \"replace\","
+                + "\"target\": \"/ietf-interfaces:interfaces-state/interface=ge-0%2F0%2F1/oper-status\","
+                + "\"value\": {\"ietf-interfaces:oper-status\": \"down\"}},"
+                + "{\"edit-id\": \"2\", \"operation\": \"merge\","
+                + "\"target\": \"/ietf-interfaces:interfaces-state/interface=eth2\","
+                + "\"value\": {\"ietf-interfaces:interface\": "
+                + "[{\"name\": \"eth2\", \"oper-status\": \"up\"}]}}"
+                + "]}}}}}");
+
+        assertEquals(ImmutableMap.of("ge-0/0/1", false, "eth2", true), changes);
+    }
+
+    @Test
+    public void linkUpAndDown() throws IOException {
+        assertEquals(ImmutableMap.of("eth3", false),
+                collect("{\"example-link:link-down\": {\"if-name\": \"eth3\"}}"));
+        assertEquals(ImmutableMap.of("eth4", true),
+                collect("{\"interface\": \"eth4\", \"example-link:link-up\": {}}"));
+    }
+
+    @Test
+    public void unrelatedNotification() throws IOException {
+        assertTrue(collect("{\"ietf-restconf:notification\": {"
+                + "\"ietf-system:system-restart\": {\"reason\": \"operator\"}}}").isEmpty());
+        assertTrue(collect("{\"oper-status\": \"up\"}").isEmpty());
+    }
+}
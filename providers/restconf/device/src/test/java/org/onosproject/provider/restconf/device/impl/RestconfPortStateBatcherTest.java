@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.restconf.device.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests coalescing of port state changes into one edit per device.
+ */
+public class RestconfPortStateBatcherTest {
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final DeviceId DEVICE_1 = DeviceId.deviceId("restconf:10.0.0.1:8080");
+    private static final DeviceId DEVICE_2 = DeviceId.deviceId("restconf:10.0.0.2:8080");
+
+    private final Map<DeviceId, String> edits = new ConcurrentHashMap<>();
+    private final AtomicInteger patches = new AtomicInteger();
+
+    private RestconfPortStateBatcher batcher(boolean accept) {
+        return new RestconfPortStateBatcher((deviceId, body) -> {
+            patches.incrementAndGet();
+            edits.put(deviceId, body);
+            return CompletableFuture.completedFuture(accept);
+        }, 1000);
+    }
+
+    private static boolean result(CompletableFuture<Boolean> request)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return request.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private Map<String, Boolean> states(DeviceId deviceId) throws IOException {
+        Map<String, Boolean> states = new ConcurrentHashMap<>();
+        JsonNode interfaces = MAPPER.readTree(edits.get(deviceId))
+                .path("ietf-interfaces:interfaces").path("interface");
+
+        interfaces.forEach(node -> states.put(node.path("name").asText(),
+                node.path("enabled").asBoolean()));
+        return states;
+    }
+
+    @Test
+    public void requestsCoalescedPerDevice() throws Exception {
+        RestconfPortStateBatcher batcher = batcher(true);
+
+        CompletableFuture<Boolean> first = batcher.submit(DEVICE_1, "eth0", false);
+        CompletableFuture<Boolean> second = batcher.submit(DEVICE_1, "eth1", false);
+        CompletableFuture<Boolean> third = batcher.submit(DEVICE_1, "eth0", true);
+        CompletableFuture<Boolean> other = batcher.submit(DEVICE_2, "eth0", false);
+
+        assertTrue(result(first));
+        assertTrue(result(second));
+        assertTrue(result(third));
+        assertTrue(result(other));
+
+        // One edit per device, the last request for a port wins
+
+        assertEquals(2, patches.get());
+        Map<String, Boolean> states = states(DEVICE_1);
+        assertEquals(2, states.size());
+        assertTrue(states.get("eth0"));
+        assertFalse(states.get("eth1"));
+        assertFalse(states(DEVICE_2).get("eth0"));
+    }
+
+    @Test
+    public void newWindowAfterFlush() throws Exception {
+        RestconfPortStateBatcher batcher = batcher(true);
+
+        assertTrue(result(batcher.submit(DEVICE_1, "eth0", false)));
+        assertTrue(result(batcher.submit(DEVICE_1, "eth0", true)));
+
+        assertEquals(2, patches.get());
+        assertTrue(states(DEVICE_1).get("eth0"));
+    }
+
+    @Test
+    public void rejectedEditFailsEveryRequest() throws Exception {
+        RestconfPortStateBatcher batcher = batcher(false);
+
+        CompletableFuture<Boolean> first = batcher.submit(DEVICE_1, "eth0", false);
+        CompletableFuture<Boolean> second = batcher.submit(DEVICE_1, "eth1", false);
+
+        assertFalse(result(first));
+        assertFalse(result(second));
+        assertEquals(1, patches.get());
+    }
+
+    @Test
+    public void failedEditFailsEveryRequest() throws Exception {
+        RestconfPortStateBatcher batcher = new RestconfPortStateBatcher((deviceId, body) -> {
+            throw new IllegalStateException("no session");
+        }, 10);
+
+        assertFalse(result(batcher.submit(DEVICE_1, "eth0", false)));
+
+        CompletableFuture<Boolean> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IOException("connection reset"));
+
+        batcher = new RestconfPortStateBatcher((deviceId, body) -> failed, 10);
+        assertFalse(result(batcher.submit(DEVICE_1, "eth0", false)));
+    }
+}
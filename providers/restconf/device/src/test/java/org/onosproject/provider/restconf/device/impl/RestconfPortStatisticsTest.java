@@ -0,0 +1,143 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.restconf.device.impl;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.device.PortStatistics;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests parsing of ietf-interfaces counters into port statistics.
+ */
+public class RestconfPortStatisticsTest {
+    private static final DeviceId DEVICE = DeviceId.deviceId("restconf:10.0.0.1:8080");
+
+    private static List<PortStatistics> parse(String reply) throws IOException {
+        return Lists.newArrayList(RestconfPortStatistics.parseStatistics(DEVICE, reply));
+    }
+
+    private static String port(int ifIndex) {
+        return "{\"name\": \"eth" + ifIndex + "\", \"if-index\": " + ifIndex + ","
+                + "\"statistics\": {\"in-octets\": \"" + (ifIndex * 1000) + "\"}}";
+    }
+
+    @Test
+    public void counters() throws IOException {
+        List<PortStatistics> statistics = parse("{\"ietf-interfaces:interfaces-state\": {\"interface\": [{"
+                + "\"name\": \"eth0\", \"type\": \"iana-if-type:ethernetCsmacd\", \"if-index\": 3,"
+                + "\"statistics\": {"
+                + "\"discontinuity-time\": \"2016-06-01T12:00:00Z\","
+                + "\"in-octets\": \"9007199254740993\", \"in-unicast-pkts\": \"10\","
+                + "\"in-broadcast-pkts\": \"2\", \"in-multicast-pkts\": 3,"
+                + "\"in-discards\": 4, \"in-errors\": 5,"
+                + "\"out-octets\": \"2000\", \"out-unicast-pkts\": \"20\","
+                + "\"out-broadcast-pkts\": \"1\", \"out-multicast-pkts\": \"1\","
+                + "\"out-discards\": 6, \"out-errors\": 7}"
+                + "}]}}");
+
+        assertEquals(1, statistics.size());
+        PortStatistics port = statistics.get(0);
+
+        assertEquals(3, port.port());
+        assertEquals(9007199254740993L, port.bytesReceived());
+        assertEquals(15, port.packetsReceived());
+        assertEquals(4, port.packetsRxDropped());
+        assertEquals(5, port.packetsRxErrors());
+        assertEquals(2000, port.bytesSent());
+        assertEquals(22, port.packetsSent());
+        assertEquals(6, port.packetsTxDropped());
+        assertEquals(7, port.packetsTxErrors());
+    }
+
+    @Test
+    public void unknownAndNestedFieldsSkipped() throws IOException {
+        List<PortStatistics> statistics = parse("{\"interface\": [{"
+                + "\"higher-layer-if\": [\"vlan10\", \"vlan20\"],"
+                + "\"ietf-ip:ipv4\": {\"address\": [{\"ip\": \"10.0.0.1\"}]},"
+                + "\"if-index\": 1,"
+                + "\"statistics\": {\"vendor:extra\": {\"x\": 1}, \"in-octets\": \"100\"}"
+                + "}]}");
+
+        assertEquals(1, statistics.size());
+        assertEquals(1, statistics.get(0).port());
+        assertEquals(100, statistics.get(0).bytesReceived());
+    }
+
+    @Test
+    public void interfaceWithoutIndexDropped() throws IOException {
+        List<PortStatistics> statistics = parse("{\"interface\": ["
+                + "{\"name\": \"lo\", \"statistics\": {\"in-octets\": \"5\"}},"
+                + port(2) + "]}");
+
+        assertEquals(1, statistics.size());
+        assertEquals(2, statistics.get(0).port());
+        assertEquals(2000, statistics.get(0).bytesReceived());
+    }
+
+    @Test
+    public void malformedCounterIsZero() throws IOException {
+        List<PortStatistics> statistics = parse("{\"interface\": [{\"if-index\": 1,"
+                + "\"statistics\": {\"in-octets\": \"12ab\", \"out-octets\": true}}]}");
+
+        assertEquals(0, statistics.get(0).bytesReceived());
+        assertEquals(0, statistics.get(0).bytesSent());
+    }
+
+    @Test
+    public void counterBeyondLongRangeIsClamped() throws IOException {
+        List<PortStatistics> statistics = parse("{\"interface\": [{\"if-index\": 1,"
+                + "\"statistics\": {\"in-octets\": \"18446744073709551615\","
+                + "\"out-octets\": 18446744073709551615, \"in-errors\": \"9223372036854775807\"}}]}");
+
+        assertEquals(Long.MAX_VALUE, statistics.get(0).bytesReceived());
+        assertEquals(Long.MAX_VALUE, statistics.get(0).bytesSent());
+        assertEquals(Long.MAX_VALUE, statistics.get(0).packetsRxErrors());
+    }
+
+    @Test
+    public void manyPorts() throws IOException {
+        StringBuilder reply = new StringBuilder("{\"interface\": [");
+
+        for (int ifIndex = 1; ifIndex <= 200; ifIndex++) {
+            reply.append(ifIndex > 1 ? "," : "").append(port(ifIndex));
+        }
+        List<PortStatistics> statistics = parse(reply.append("]}").toString());
+
+        assertEquals(200, statistics.size());
+        for (int index = 0; index < 200; index++) {
+            assertEquals(index + 1, statistics.get(index).port());
+            assertEquals((index + 1) * 1000, statistics.get(index).bytesReceived());
+        }
+    }
+
+    @Test
+    public void noInterfaces() throws IOException {
+        assertTrue(parse("{}").isEmpty());
+        assertTrue(parse("{\"ietf-interfaces:interfaces-state\": {\"interface\": []}}").isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidJson() throws IOException {
+        parse("{\"interface\": [{\"if-index\": 1, \"statistics\": {");
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.restconf.device.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.AnnotationKeys;
+import org.onosproject.net.DefaultAnnotations;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.Port;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.device.DefaultPortDescription;
+import org.onosproject.net.device.DefaultPortStatistics;
+import org.onosproject.net.device.DeviceProviderService;
+import org.onosproject.net.device.PortDescription;
+import org.onosproject.net.device.PortStatistics;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that port and statistics refreshes only report changes.
+ */
+public class RestconfPortTrackerTest {
+    private static final DeviceId DEVICE = DeviceId.deviceId("restconf:10.0.0.1:8080");
+
+    private RestconfPortTracker tracker;
+    private final List<String> calls = new ArrayList<>();
+    private DeviceProviderService service;
+
+    @Before
+    public void setUp() {
+        tracker = new RestconfPortTracker();
+
+        // Records the name of each provider service method called
+
+        service = (DeviceProviderService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{DeviceProviderService.class}, (proxy, method, args) -> {
+                    calls.add(method.getName());
+                    return null;
+                });
+    }
+
+    private static PortDescription port(long number, boolean enabled) {
+        return new DefaultPortDescription(PortNumber.portNumber(number), enabled,
+                Port.Type.COPPER, 1000,
+                DefaultAnnotations.builder().set(AnnotationKeys.PORT_NAME, "eth" + number).build());
+    }
+
+    private static PortStatistics statistics(int port, long packets) {
+        return DefaultPortStatistics.builder()
+                .setDeviceId(DEVICE)
+                .setPort(port)
+                .setPacketsReceived(packets)
+                .setPacketsSent(packets)
+                .build();
+    }
+
+    @Test
+    public void firstRefreshIsFull() {
+        assertEquals(2, tracker.refresh(DEVICE, ImmutableList.of(port(1, true), port(2, true)), service));
+        assertEquals(ImmutableList.of("updatePorts"), calls);
+    }
+
+    @Test
+    public void onlyChangedPortsReported() {
+        tracker.refresh(DEVICE, ImmutableList.of(port(1, true), port(2, true)), service);
+        calls.clear();
+
+        assertEquals(0, tracker.refresh(DEVICE, ImmutableList.of(port(1, true), port(2, true)), service));
+        assertTrue(calls.isEmpty());
+
+        assertEquals(2, tracker.refresh(DEVICE,
+                ImmutableList.of(port(1, false), port(2, true), port(3, true)), service));
+        assertEquals(ImmutableList.of("portStatusChanged", "portStatusChanged"), calls);
+    }
+
+    @Test
+    public void removedPortSendsFullList() {
+        tracker.refresh(DEVICE, ImmutableList.of(port(1, true), port(2, true)), service);
+        calls.clear();
+
+        assertEquals(1, tracker.refresh(DEVICE, ImmutableList.of(port(1, true)), service));
+        assertEquals(ImmutableList.of("updatePorts"), calls);
+    }
+
+    @Test
+    public void emptyRefreshKeepsPorts() {
+        tracker.refresh(DEVICE, ImmutableList.of(port(1, true)), service);
+        calls.clear();
+
+        assertEquals(0, tracker.refresh(DEVICE, ImmutableList.of(), service));
+        assertTrue(calls.isEmpty());
+        assertEquals("eth1", tracker.portName(DEVICE, PortNumber.portNumber(1)));
+    }
+
+    @Test
+    public void portStateUpdates() {
+        tracker.refresh(DEVICE, ImmutableList.of(port(1, true)), service);
+
+        assertNull(tracker.updatePortState(DEVICE, "eth1", true));
+        assertNull(tracker.updatePortState(DEVICE, "eth9", false));
+
+        PortDescription updated = tracker.updatePortState(DEVICE, "eth1", false);
+        assertFalse(updated.isEnabled());
+        assertEquals(PortNumber.portNumber(1), updated.portNumber());
+
+        // The tracked state moved with it, so the next matching refresh sends nothing
+
+        calls.clear();
+        assertEquals(0, tracker.refresh(DEVICE, ImmutableList.of(port(1, false)), service));
+    }
+
+    @Test
+    public void statisticsOnlySentWhenCountersMove() {
+        assertEquals(2, tracker.refreshStatistics(DEVICE,
+                ImmutableList.of(statistics(1, 10), statistics(2, 20)), service));
+        assertEquals(ImmutableList.of("updatePortStatistics"), calls);
+        calls.clear();
+
+        assertEquals(0, tracker.refreshStatistics(DEVICE,
+                ImmutableList.of(statistics(1, 10), statistics(2, 20)), service));
+        assertTrue(calls.isEmpty());
+
+        assertEquals(1, tracker.refreshStatistics(DEVICE,
+                ImmutableList.of(statistics(1, 11), statistics(2, 20)), service));
+        assertEquals(ImmutableList.of("updatePortStatistics"), calls);
+    }
+
+    @Test
+    public void fingerprints() {
+        assertTrue(tracker.fingerprintChanged(DEVICE, "a"));
+        assertFalse(tracker.fingerprintChanged(DEVICE, "a"));
+        assertFalse(tracker.fingerprintChanged(DEVICE, null));
+        assertTrue(tracker.fingerprintChanged(DEVICE, "b"));
+    }
+
+    @Test
+    public void removedDeviceStartsOver() {
+        tracker.refresh(DEVICE, ImmutableList.of(port(1, true)), service);
+        tracker.fingerprintChanged(DEVICE, "a");
+        tracker.remove(DEVICE);
+        calls.clear();
+
+        assertNull(tracker.portName(DEVICE, PortNumber.portNumber(1)));
+        assertTrue(tracker.fingerprintChanged(DEVICE, "a"));
+        assertEquals(1, tracker.refresh(DEVICE, ImmutableList.of(port(1, true)), service));
+        assertEquals(ImmutableList.of("updatePorts"), calls);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.restconf.device.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.incubator.net.config.basics.ConfigException;
+import org.onosproject.restconf.RestconfDeviceInfo;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests reading the device list of the provider configuration.
+ */
+public class RestconfProviderConfigTest {
+    private static final ApplicationId APP_ID = new DefaultApplicationId(1, "org.onosproject.restconf");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static RestconfProviderConfig config(String json) throws IOException {
+        JsonNode node = MAPPER.readTree(json);
+        RestconfProviderConfig config = new RestconfProviderConfig();
+
+        config.init(APP_ID, "restconf", node, MAPPER, null);
+        return config;
+    }
+
+    private static String devices(int count) {
+        StringBuilder json = new StringBuilder("{\"devices\": [");
+
+        for (int index = 1; index <= count; index++) {
+            json.append(index > 1 ? "," : "")
+                    .append("{\"username\": \"admin\", \"password\": \"secret\", \"ipAddress\": \"10.0.0.")
+                    .append(index).append("\", \"port\": 8080}");
+        }
+        return json.append("]}").toString();
+    }
+
+    @Test
+    public void iteratorParsesEntriesInOrder() throws IOException, ConfigException {
+        List<RestconfDeviceInfo> devices = Lists.newArrayList(config(devices(3)).getDeviceInfoIterator());
+
+        assertEquals(3, devices.size());
+        for (int index = 0; index < 3; index++) {
+            assertEquals("10.0.0." + (index + 1), devices.get(index).getIpAddress().toString());
+            assertEquals(8080, devices.get(index).getPort());
+        }
+    }
+
+    @Test
+    public void iteratorReusesParsedDevices() throws IOException, ConfigException {
+        RestconfProviderConfig config = config(devices(2));
+        RestconfDeviceInfo parsed = config.getDeviceInfo().values().iterator().next();
+
+        List<RestconfDeviceInfo> iterated = Lists.newArrayList(config.getDeviceInfoIterator());
+
+        assertEquals(2, iterated.size());
+        assertSame(parsed, iterated.stream()
+                .filter(info -> info.getDeviceId().equals(parsed.getDeviceId()))
+                .findFirst().get());
+    }
+
+    @Test
+    public void noDevices() throws IOException, ConfigException {
+        assertFalse(config("{}").getDeviceInfoIterator().hasNext());
+    }
+
+    @Test(expected = ConfigException.class)
+    public void devicesNotAnArray() throws IOException, ConfigException {
+        config("{\"devices\": {}}").getDeviceInfoIterator();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidEntryReportedWhenReached() throws IOException, ConfigException {
+        Iterator<RestconfDeviceInfo> devices = config("{\"devices\": ["
+                + "{\"username\": \"admin\", \"ipAddress\": \"10.0.0.1\"},"
+                + "{\"username\": \"admin\", \"ipAddress\": \"not an address\"}]}").getDeviceInfoIterator();
+
+        devices.next();
+        devices.next();
+    }
+}
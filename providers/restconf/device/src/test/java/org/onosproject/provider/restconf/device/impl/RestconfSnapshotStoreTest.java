@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015-present Boling Consulting Solutions, bcsw.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.restconf.device.impl;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.net.DeviceId;
+import org.onosproject.restconf.RestconfDeviceIdentity;
+import org.onosproject.restconf.RestconfDeviceSnapshot;
+import org.onosproject.restconf.RestconfDeviceState;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the device snapshot store.
+ */
+public class RestconfSnapshotStoreTest {
+    private static final DeviceId DEVICE = DeviceId.deviceId("restconf:10.0.0.1:8080");
+
+    private Path directory;
+    private Path file;
+    private RestconfSnapshotStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("restconf-snapshot");
+        file = directory.resolve("device-snapshot.bin");
+        store = new RestconfSnapshotStore(file);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void roundTrip() {
+        RestconfDeviceSnapshot saved = new RestconfDeviceSnapshot(DEVICE, "/restconf", "abc123",
+                "application/yang-data+json", ImmutableSet.of("urn:ietf:params:restconf:capability:depth:1.0"),
+                RestconfDeviceIdentity.of("Acme", "B", "2.1", "C-42"), RestconfDeviceState.ACTIVE);
+
+        store.write(ImmutableList.of(saved));
+        Map<DeviceId, RestconfDeviceSnapshot> loaded = store.read();
+
+        RestconfDeviceSnapshot snapshot = loaded.get(DEVICE);
+
+        assertEquals(1, loaded.size());
+        assertEquals(saved.getApiRoot(), snapshot.getApiRoot());
+        assertEquals(saved.getModuleSetId(), snapshot.getModuleSetId());
+        assertEquals(saved.getMediaType(), snapshot.getMediaType());
+        assertEquals(saved.getCapabilities(), snapshot.getCapabilities());
+        assertEquals(saved.getIdentity(), snapshot.getIdentity());
+        assertEquals(saved.getLastState(), snapshot.getLastState());
+    }
+
+    @Test
+    public void longStringsKept() {
+        String moduleSetId = Strings.repeat("0123456789abcdef", 5000);
+        RestconfDeviceSnapshot saved = new RestconfDeviceSnapshot(DEVICE, "/restconf", moduleSetId,
+                "", ImmutableSet.of(), RestconfDeviceState.ACTIVE);
+
+        store.write(ImmutableList.of(saved));
+
+        assertEquals(moduleSetId, store.read().get(DEVICE).getModuleSetId());
+    }
+
+    @Test
+    public void failedWriteRemovesTemporaryFile() throws IOException {
+        // A non-empty directory in place of the snapshot makes the final move fail
+
+        Files.createDirectories(file.resolve("blocker"));
+
+        store.write(ImmutableList.of(new RestconfDeviceSnapshot(DEVICE, "/restconf", "1", "",
+                ImmutableSet.of(), RestconfDeviceState.ACTIVE)));
+
+        assertFalse(Files.exists(directory.resolve("device-snapshot.bin.tmp")));
+        assertTrue(Files.isDirectory(file));
+    }
+
+    @Test
+    public void corruptFileIgnored() throws IOException {
+        Files.write(file, new byte[]{0x52, 0x43, 0x53, 0x46, 0, 3, 0, 0, 0, 1, 0x7f, 0, 0, 0});
+
+        assertTrue(store.read().isEmpty());
+    }
+}